@@ -113,6 +113,9 @@ tasks.named<Test>("test") {
     // 測試環境配置
     systemProperty("spring.profiles.active", "test")
 
+    // 基準測試開關（-Dbenchmark=true）
+    System.getProperty("benchmark")?.let { systemProperty("benchmark", it) }
+
     // 增加測試超時時間
     timeout.set(Duration.ofSeconds(300))
 
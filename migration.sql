@@ -0,0 +1,32 @@
+-- ============================================
+-- 既有數據庫升級腳本（MySQL 8）
+-- schema.sql 只用於新建數據庫（CREATE TABLE IF NOT EXISTS 不會為已存在的表補欄位），
+-- 應用以 ddl-auto: none 運行，升級前需按順序執行以下語句，每段只執行一次
+-- ============================================
+
+-- 1. 獎品庫存分片（prizes.stock_shards、prize_stock_shards）
+ALTER TABLE prizes
+    ADD COLUMN stock_shards INT NOT NULL DEFAULT 1 COMMENT '庫存分片數（>1 時啟用分片庫存）' AFTER remaining_stock;
+
+CREATE TABLE IF NOT EXISTS prize_stock_shards (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    prize_id BIGINT NOT NULL,
+    shard_no INT NOT NULL COMMENT '分片編號（0 ~ stock_shards-1）',
+    remaining_stock INT NOT NULL DEFAULT 0 COMMENT '分片剩餘庫存',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_prize_shard (prize_id, shard_no),
+    FOREIGN KEY (prize_id) REFERENCES prizes(id) ON DELETE CASCADE,
+    CONSTRAINT chk_shard_stock CHECK (remaining_stock >= 0)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='獎品庫存分片表';
+
+-- 2. 不限庫存獎品（prizes.unlimited_stock），既有銘謝惠顧改為不限庫存
+ALTER TABLE prizes
+    ADD COLUMN unlimited_stock BOOLEAN NOT NULL DEFAULT FALSE COMMENT '不限庫存（抽中時不鎖定、不扣減）' AFTER remaining_stock;
+
+UPDATE prizes SET unlimited_stock = TRUE WHERE prize_type = 'NO_PRIZE';
+
+-- 3. 抽獎日誌事務提交表（開啟 lottery.journal.enabled 前必須建立）
+CREATE TABLE IF NOT EXISTS draw_journal_commits (
+    id BIGINT PRIMARY KEY COMMENT '日誌事務ID（該次抽獎第一條記錄的ID）',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='抽獎日誌事務提交表';
@@ -44,6 +44,8 @@ CREATE TABLE IF NOT EXISTS prizes (
     description TEXT,
     total_stock INT NOT NULL DEFAULT 0 COMMENT '總庫存',
     remaining_stock INT NOT NULL DEFAULT 0 COMMENT '剩餘庫存',
+    unlimited_stock BOOLEAN NOT NULL DEFAULT FALSE COMMENT '不限庫存（抽中時不鎖定、不扣減）',
+    stock_shards INT NOT NULL DEFAULT 1 COMMENT '庫存分片數（>1 時啟用分片庫存）',
     probability DECIMAL(10, 6) NOT NULL COMMENT '中獎機率 (0-1之間)',
     prize_type VARCHAR(20) NOT NULL DEFAULT 'PHYSICAL' COMMENT 'PHYSICAL, VIRTUAL, NO_PRIZE',
     image_url VARCHAR(255),
@@ -58,7 +60,7 @@ CREATE TABLE IF NOT EXISTS prizes (
 
 -- 4. 抽獎記錄表（不變）
 CREATE TABLE IF NOT EXISTS draw_records (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT PRIMARY KEY COMMENT '雪花 ID（應用層生成）',
     activity_id BIGINT NOT NULL,
     user_id BIGINT NOT NULL,
     prize_id BIGINT,
@@ -109,6 +111,23 @@ CREATE TABLE IF NOT EXISTS user_draw_statistics (
     CONSTRAINT fk_activity FOREIGN KEY (activity_id) REFERENCES lottery_activities(id)
 );
 
+-- 7. 獎品庫存分片表（熱門獎品分散單行競爭，分片總和即剩餘庫存）
+CREATE TABLE IF NOT EXISTS prize_stock_shards (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    prize_id BIGINT NOT NULL,
+    shard_no INT NOT NULL COMMENT '分片編號（0 ~ stock_shards-1）',
+    remaining_stock INT NOT NULL DEFAULT 0 COMMENT '分片剩餘庫存',
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_prize_shard (prize_id, shard_no),
+    FOREIGN KEY (prize_id) REFERENCES prizes(id) ON DELETE CASCADE,
+    CONSTRAINT chk_shard_stock CHECK (remaining_stock >= 0)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='獎品庫存分片表';
+
+-- 8. 抽獎日誌事務提交表（lottery.journal.enabled 時與抽獎在同一事務寫入，回放時確認沒有結果標記的日誌記錄）
+CREATE TABLE IF NOT EXISTS draw_journal_commits (
+    id BIGINT PRIMARY KEY COMMENT '日誌事務ID（該次抽獎第一條記錄的ID）',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='抽獎日誌事務提交表';
 
 -- ============================================
 -- 測試數據 (DML)
@@ -126,8 +145,8 @@ INSERT INTO lottery_activities (name, description, start_time, end_time, limit_t
 ('新年大抽獎', '新年限定豪華抽獎', '2025-12-25 00:00:00', '2026-01-05 23:59:59', 'TOTAL', 5, 'ACTIVE');
 
 -- 插入獎品
-INSERT INTO prizes (activity_id, name, description, total_stock, remaining_stock, probability, prize_type) VALUES
-(1, 'iPhone 15 Pro', '最新款iPhone 15 Pro 256GB', 10, 10, 0.01, 'PHYSICAL'),
-(1, 'AirPods Pro', 'Apple AirPods Pro 第二代', 50, 50, 0.05, 'PHYSICAL'),
-(1, '100元購物金', '平台通用購物金', 500, 500, 0.14, 'VIRTUAL'),
-(1, '銘謝惠顧', '謝謝參與', 999999, 999999, 0.80, 'NO_PRIZE');
+INSERT INTO prizes (activity_id, name, description, total_stock, remaining_stock, unlimited_stock, stock_shards, probability, prize_type) VALUES
+(1, 'iPhone 15 Pro', '最新款iPhone 15 Pro 256GB', 10, 10, FALSE, 1, 0.01, 'PHYSICAL'),
+(1, 'AirPods Pro', 'Apple AirPods Pro 第二代', 50, 50, FALSE, 1, 0.05, 'PHYSICAL'),
+(1, '100元購物金', '平台通用購物金', 500, 500, FALSE, 8, 0.14, 'VIRTUAL'),
+(1, '銘謝惠顧', '謝謝參與', 0, 0, TRUE, 1, 0.80, 'NO_PRIZE');
@@ -1,30 +1,26 @@
 package org.amway.aspect;
 
-import com.google.common.util.concurrent.RateLimiter;
 import org.amway.exception.BusinessException;
 import org.amway.exception.enums.ErrorCode;
+import org.amway.service.ratelimit.GlobalRateLimiter;
+import org.amway.util.UserRateLimiterStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.ConcurrentHashMap;
-
 @Slf4j
 @Aspect
 @Component
 @RequiredArgsConstructor
 public class RateLimitAspect {
 
-    private final RateLimiter globalRateLimiter;
-    private final ConcurrentHashMap<Long, RateLimiter> userRateLimiters;
-    @Qualifier("userQpsConfig")  // 用戶 QPS 配置（注入）
-    private final Double userQpsConfig;
+    private final GlobalRateLimiter globalRateLimiter;
+    private final UserRateLimiterStore userRateLimiters;
 
     @Around("@annotation(org.amway.annotation.RateLimit)")
     public Object rateLimit(ProceedingJoinPoint joinPoint) throws Throwable {
@@ -42,11 +38,7 @@ public class RateLimitAspect {
                 userId = Long.valueOf(authentication.getPrincipal().toString());
             } catch (Exception ignore) {}
             if (userId != null) {
-                RateLimiter userRateLimiter = userRateLimiters.computeIfAbsent(
-                        userId,
-                        k -> RateLimiter.create(userQpsConfig)
-                );
-                if (!userRateLimiter.tryAcquire()) {
+                if (!userRateLimiters.tryAcquire(userId)) {
                     log.warn("用戶 {} 觸發限流", userId);
                     throw new BusinessException(ErrorCode.RATE_LIMIT_EXCEEDED, "請求過於頻繁，請稍後再試");
                 }
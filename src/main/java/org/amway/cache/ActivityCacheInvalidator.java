@@ -0,0 +1,109 @@
+package org.amway.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 活動與獎品快取失效入口
+ * 活動或獎品配置變動後呼叫，清除活動列表 / 詳情的二級快取、獎品目錄與活動描述的本地快取、刷新活動時間軸，並通知其他節點
+ * 在事務中呼叫時延後到提交之後執行，避免其他節點在提交前重新載入舊數據
+ */
+@Slf4j
+@Component
+public class ActivityCacheInvalidator {
+
+    public static final String ACTIVE_ACTIVITIES = "activeActivities";
+    public static final String ACTIVITY = "activity";
+    public static final String ACTIVE_ACTIVITIES_KEY = "all";
+
+    static final String PRIZE_CATALOG = "prizeCatalog";
+    static final String ACTIVITY_DESCRIPTOR = "activityDescriptor";
+
+    private final CacheManager cacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private final PrizeCatalogCache prizeCatalogCache;
+    private final ActivityDescriptorCache activityDescriptorCache;
+    private final ActivityTimeline activityTimeline;
+
+    public ActivityCacheInvalidator(CacheManager cacheManager,
+                                    CacheInvalidationBus invalidationBus,
+                                    PrizeCatalogCache prizeCatalogCache,
+                                    ActivityDescriptorCache activityDescriptorCache,
+                                    ActivityTimeline activityTimeline) {
+        this.cacheManager = cacheManager;
+        this.invalidationBus = invalidationBus;
+        this.prizeCatalogCache = prizeCatalogCache;
+        this.activityDescriptorCache = activityDescriptorCache;
+        this.activityTimeline = activityTimeline;
+
+        invalidationBus.subscribe(PRIZE_CATALOG, key -> {
+            if (key instanceof Long activityId) {
+                prizeCatalogCache.invalidate(activityId);
+            } else {
+                prizeCatalogCache.invalidateAll();
+            }
+        });
+        invalidationBus.subscribe(ACTIVITY_DESCRIPTOR, key -> {
+            if (key instanceof Long activityId) {
+                activityDescriptorCache.invalidate(activityId);
+                activityTimeline.refresh(activityId);
+            } else {
+                activityDescriptorCache.invalidateAll();
+                activityTimeline.reload();
+            }
+        });
+    }
+
+    /**
+     * 活動時間、狀態、次數限制等變動
+     */
+    public void activityChanged(Long activityId) {
+        afterCommit(() -> {
+            // 先刷新時間軸再清除列表快取，避免列表按舊的進行中集合重建
+            activityTimeline.refresh(activityId);
+            evictActivity(activityId);
+            activityDescriptorCache.invalidate(activityId);
+            invalidationBus.publish(ACTIVITY_DESCRIPTOR, activityId);
+        });
+    }
+
+    /**
+     * 獎品新增、修改、刪除
+     */
+    public void prizeChanged(Long activityId) {
+        afterCommit(() -> {
+            evictActivity(activityId);
+            prizeCatalogCache.invalidate(activityId);
+            invalidationBus.publish(PRIZE_CATALOG, activityId);
+        });
+    }
+
+    private void evictActivity(Long activityId) {
+        Cache activity = cacheManager.getCache(ACTIVITY);
+        if (activity != null) {
+            activity.evict(activityId);
+        }
+        Cache activeActivities = cacheManager.getCache(ACTIVE_ACTIVITIES);
+        if (activeActivities != null) {
+            activeActivities.evict(ACTIVE_ACTIVITIES_KEY);
+        }
+        log.info("活動快取已失效，活動ID：{}", activityId);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,50 @@
+package org.amway.cache;
+
+import lombok.Builder;
+import lombok.Value;
+import org.amway.entity.LotteryActivity;
+
+import java.time.LocalDateTime;
+
+/**
+ * 活動不可變描述（抽獎路徑專用，只含時間窗口、狀態與次數限制）
+ */
+@Value
+@Builder
+public class ActivityDescriptor {
+
+    Long id;
+
+    LocalDateTime startTime;
+
+    LocalDateTime endTime;
+
+    LotteryActivity.ActivityStatus status;
+
+    /**
+     * TOTAL / DAILY / WEEKLY
+     */
+    String limitType;
+
+    int maxDrawsPerUser;
+
+    public static ActivityDescriptor from(LotteryActivity activity) {
+        return ActivityDescriptor.builder()
+                .id(activity.getId())
+                .startTime(activity.getStartTime())
+                .endTime(activity.getEndTime())
+                .status(activity.getStatus())
+                .limitType(activity.getLimitType())
+                .maxDrawsPerUser(activity.getMaxDrawsPerUser())
+                .build();
+    }
+
+    /**
+     * 檢查活動是否正在進行中（與 LotteryActivity.isActive 相同）
+     */
+    public boolean isActive(LocalDateTime now) {
+        return status == LotteryActivity.ActivityStatus.ACTIVE
+                && now.isAfter(startTime)
+                && now.isBefore(endTime);
+    }
+}
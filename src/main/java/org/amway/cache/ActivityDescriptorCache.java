@@ -0,0 +1,54 @@
+package org.amway.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.amway.exception.BusinessException;
+import org.amway.exception.enums.ErrorCode;
+import org.amway.repository.LotteryActivityRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 活動描述本地快取
+ * 抽獎與剩餘次數查詢只需要活動的時間窗口與次數限制，命中時不查詢數據庫；活動配置變動時需呼叫 invalidate
+ */
+@Slf4j
+@Component
+public class ActivityDescriptorCache {
+
+    private final LotteryActivityRepository activityRepository;
+    private final SingleFlightCache<Long, ActivityDescriptor> descriptors;
+
+    public ActivityDescriptorCache(LotteryActivityRepository activityRepository,
+                                   @Value("${lottery.activity-descriptor.max-size:1000}") long maxSize,
+                                   @Value("${lottery.activity-descriptor.ttl-seconds:60}") long ttlSeconds) {
+        this.activityRepository = activityRepository;
+        this.descriptors = new SingleFlightCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+    /**
+     * 獲取活動描述（未命中時從數據庫載入，同一活動同時只會載入一次；活動不存在時拋出 RESOURCE_NOT_FOUND，不快取）
+     */
+    public ActivityDescriptor get(Long activityId) {
+        return descriptors.get(activityId, this::load);
+    }
+
+    /**
+     * 使指定活動的描述失效（活動時間、狀態或次數限制變動時呼叫）
+     */
+    public void invalidate(Long activityId) {
+        descriptors.invalidate(activityId);
+        log.debug("活動描述已失效，活動ID：{}", activityId);
+    }
+
+    public void invalidateAll() {
+        descriptors.invalidateAll();
+    }
+
+    private ActivityDescriptor load(Long activityId) {
+        return activityRepository.findById(activityId)
+                .map(ActivityDescriptor::from)
+                .orElseThrow(() -> new BusinessException(ErrorCode.RESOURCE_NOT_FOUND, "活動不存在"));
+    }
+}
@@ -0,0 +1,175 @@
+package org.amway.cache;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.amway.entity.LotteryActivity;
+import org.amway.repository.LotteryActivityRepository;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 活動時間軸
+ * 在記憶體中按開始 / 結束時間維護所有未結束的 ACTIVE 活動，在最近的邊界時間點由計時器翻轉「進行中」集合
+ * 抽獎路徑與活動列表讀取同一份不可變快照，不再逐次比較時間或按時間範圍查詢數據庫
+ * 活動狀態或時間變動時由 ActivityCacheInvalidator 呼叫 refresh（其他節點經失效廣播），並定時全量重載兜底
+ */
+@Slf4j
+@Component
+public class ActivityTimeline {
+
+    private static final Comparator<ActivityDescriptor> START_ORDER = Comparator
+            .comparing(ActivityDescriptor::getStartTime)
+            .thenComparing(ActivityDescriptor::getId);
+
+    private final LotteryActivityRepository activityRepository;
+    private final CacheManager cacheManager;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("activity-timeline")
+            .setDaemon(true)
+            .build());
+
+    /**
+     * 未結束的 ACTIVE 活動（含未開始），只在持有鎖時讀寫
+     */
+    private final Map<Long, ActivityDescriptor> scheduled = new HashMap<>();
+    private ScheduledFuture<?> nextFlip;
+    private volatile Snapshot snapshot;
+
+    public ActivityTimeline(LotteryActivityRepository activityRepository, CacheManager cacheManager) {
+        this.activityRepository = activityRepository;
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * 獲取進行中的活動描述；活動不存在、未開始、已結束或非 ACTIVE 時返回 null
+     */
+    public ActivityDescriptor getActive(Long activityId) {
+        return snapshot().active().get(activityId);
+    }
+
+    /**
+     * 進行中的活動 ID（按開始時間排序）
+     */
+    public List<Long> getActiveIds() {
+        return snapshot().activeIds();
+    }
+
+    /**
+     * 從數據庫全量重載（啟動時與定時兜底，pub/sub 消息丟失時的最長不一致時間）
+     */
+    @Scheduled(fixedDelayString = "${lottery.timeline.reload-interval-ms:60000}")
+    public synchronized void reload() {
+        List<LotteryActivity> activities = activityRepository.findSchedulableActivities(LocalDateTime.now());
+        scheduled.clear();
+        activities.forEach(activity -> scheduled.put(activity.getId(), ActivityDescriptor.from(activity)));
+        rebuild();
+        log.debug("活動時間軸已重載，未結束活動數：{}", scheduled.size());
+    }
+
+    /**
+     * 重新載入單個活動（狀態、時間或次數限制變動時呼叫）
+     */
+    public synchronized void refresh(Long activityId) {
+        LocalDateTime now = LocalDateTime.now();
+        activityRepository.findById(activityId)
+                .filter(activity -> activity.getStatus() == LotteryActivity.ActivityStatus.ACTIVE)
+                .filter(activity -> activity.getEndTime().isAfter(now))
+                .ifPresentOrElse(
+                        activity -> scheduled.put(activityId, ActivityDescriptor.from(activity)),
+                        () -> scheduled.remove(activityId));
+        rebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 按當前時間重建快照，並把計時器設到下一個開始或結束時間
+     * 進行中集合變化時清除活動列表快取（列表由快照決定成員）
+     */
+    private void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        scheduled.values().removeIf(descriptor -> !descriptor.getEndTime().isAfter(now));
+
+        List<ActivityDescriptor> active = scheduled.values().stream()
+                .filter(descriptor -> descriptor.isActive(now))
+                .sorted(START_ORDER)
+                .toList();
+        Snapshot previous = snapshot;
+        snapshot = new Snapshot(
+                active.stream().collect(Collectors.toUnmodifiableMap(ActivityDescriptor::getId, Function.identity())),
+                active.stream().map(ActivityDescriptor::getId).toList());
+
+        if (previous != null && !previous.activeIds().equals(snapshot.activeIds())) {
+            log.info("進行中活動已變更：{} -> {}", previous.activeIds(), snapshot.activeIds());
+            evictActiveActivities();
+        }
+        scheduleNextFlip(now);
+    }
+
+    private void scheduleNextFlip(LocalDateTime now) {
+        if (nextFlip != null) {
+            nextFlip.cancel(false);
+        }
+        // isActive 不含邊界，開始時間當刻仍未開始，因此計時器在邊界之後 1ms 觸發
+        LocalDateTime next = scheduled.values().stream()
+                .map(descriptor -> now.isAfter(descriptor.getStartTime()) ? descriptor.getEndTime() : descriptor.getStartTime())
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+        nextFlip = next == null ? null
+                : timer.schedule(this::flip, Duration.between(now, next).toMillis() + 1, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void flip() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("活動時間軸翻轉失敗，等待下次重載", e);
+        }
+    }
+
+    private void evictActiveActivities() {
+        try {
+            Cache cache = cacheManager.getCache(ActivityCacheInvalidator.ACTIVE_ACTIVITIES);
+            if (cache != null) {
+                cache.evict(ActivityCacheInvalidator.ACTIVE_ACTIVITIES_KEY);
+            }
+        } catch (Exception e) {
+            log.warn("清除活動列表快取失敗，等待快取過期", e);
+        }
+    }
+
+    private record Snapshot(Map<Long, ActivityDescriptor> active, List<Long> activeIds) {
+    }
+}
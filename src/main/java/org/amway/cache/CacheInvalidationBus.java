@@ -0,0 +1,115 @@
+package org.amway.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 本地快取失效廣播（Redis pub/sub）
+ * 任一節點修改資料後發布「快取名 + 鍵」，其他節點收到後只清除自己的本地快取；自己發出的消息會被忽略
+ * pub/sub 不保證送達，本地快取需同時設置較短的兜底過期時間
+ * 消息格式：{節點標識}|{快取名}|{鍵}，鍵為 L:數字、S:字串，* 表示清空整個快取
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus implements MessageListener {
+
+    private static final String SEPARATOR = "|";
+    private static final String ALL_KEYS = "*";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String origin = UUID.randomUUID().toString();
+    private final Map<String, List<Consumer<Object>>> subscribers = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate,
+                                @Value("${lottery.cache.invalidation-channel:lottery:cache:invalidate}") String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * 註冊本地快取的失效回調；鍵為 null 表示清空整個快取
+     */
+    public void subscribe(String cacheName, Consumer<Object> evictor) {
+        subscribers.computeIfAbsent(cacheName, name -> new CopyOnWriteArrayList<>()).add(evictor);
+    }
+
+    /**
+     * 通知其他節點失效指定鍵；key 為 null 表示清空整個快取
+     * 發布失敗只記錄日誌，其他節點依賴本地快取的過期時間收斂
+     */
+    public void publish(String cacheName, Object key) {
+        String message = origin + SEPARATOR + cacheName + SEPARATOR + encodeKey(key);
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            log.warn("發布快取失效消息失敗，快取：{}，鍵：{}", cacheName, key, e);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split("\\|", 3);
+        if (parts.length != 3) {
+            log.warn("忽略格式錯誤的快取失效消息：{}", body);
+            return;
+        }
+        if (origin.equals(parts[0])) {
+            return;
+        }
+
+        List<Consumer<Object>> evictors = subscribers.get(parts[1]);
+        if (evictors == null) {
+            return;
+        }
+        Object key = decodeKey(parts[2]);
+        for (Consumer<Object> evictor : evictors) {
+            try {
+                evictor.accept(key);
+            } catch (Exception e) {
+                log.error("處理快取失效消息失敗，快取：{}，鍵：{}", parts[1], key, e);
+            }
+        }
+        log.debug("收到快取失效消息，快取：{}，鍵：{}", parts[1], key == null ? ALL_KEYS : key);
+    }
+
+    /**
+     * 只支持 Long 與 String 鍵，其他類型的鍵退化為清空整個快取
+     */
+    private static String encodeKey(Object key) {
+        if (key instanceof Long value) {
+            return "L:" + value;
+        }
+        if (key instanceof String value) {
+            return "S:" + value;
+        }
+        return ALL_KEYS;
+    }
+
+    private static Object decodeKey(String encoded) {
+        if (encoded.startsWith("L:")) {
+            return Long.parseLong(encoded.substring(2));
+        }
+        if (encoded.startsWith("S:")) {
+            return encoded.substring(2);
+        }
+        return null;
+    }
+}
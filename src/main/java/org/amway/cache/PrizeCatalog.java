@@ -0,0 +1,67 @@
+package org.amway.cache;
+
+import lombok.Getter;
+import org.amway.entity.Prize;
+import org.amway.util.AliasSampler;
+
+import java.util.List;
+
+/**
+ * 活動獎品目錄（不可變，附帶預先編譯的抽樣器）
+ */
+@Getter
+public final class PrizeCatalog {
+
+    private final Long activityId;
+
+    /**
+     * 目錄版本，每次重建遞增
+     */
+    private final long version;
+
+    private final List<PrizeSnapshot> prizes;
+
+    private final AliasSampler sampler;
+
+    private PrizeCatalog(Long activityId, long version, List<PrizeSnapshot> prizes, AliasSampler sampler) {
+        this.activityId = activityId;
+        this.version = version;
+        this.prizes = prizes;
+        this.sampler = sampler;
+    }
+
+    /**
+     * 由獎品實體建立目錄，抽樣語義與累積輪盤相同（剩餘機率歸入最後一個獎品，通常是銘謝惠顧）
+     */
+    public static PrizeCatalog of(Long activityId, long version, List<Prize> prizes) {
+        List<PrizeSnapshot> snapshots = prizes.stream()
+                .map(PrizeSnapshot::from)
+                .toList();
+
+        if (snapshots.isEmpty()) {
+            return new PrizeCatalog(activityId, version, snapshots, null);
+        }
+
+        double[] probabilities = new double[snapshots.size()];
+        for (int i = 0; i < probabilities.length; i++) {
+            probabilities[i] = snapshots.get(i).getProbability().doubleValue();
+        }
+
+        return new PrizeCatalog(activityId, version, snapshots,
+                AliasSampler.fromCumulativeProbabilities(probabilities));
+    }
+
+    /**
+     * 根據機率抽出一個獎品，目錄為空時返回 null
+     */
+    public PrizeSnapshot sample() {
+        if (sampler == null) {
+            return null;
+        }
+        return prizes.get(sampler.sample());
+    }
+
+    public boolean isEmpty() {
+        return prizes.isEmpty();
+    }
+}
@@ -0,0 +1,59 @@
+package org.amway.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.amway.repository.PrizeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 活動獎品目錄本地快取
+ * 抽獎路徑只讀取不可變快照，不經過 JPA；獎品配置變動時需呼叫 invalidate
+ */
+@Slf4j
+@Component
+public class PrizeCatalogCache {
+
+    private final PrizeRepository prizeRepository;
+    private final SingleFlightCache<Long, PrizeCatalog> catalogs;
+    private final AtomicLong versionSequence = new AtomicLong();
+
+    public PrizeCatalogCache(PrizeRepository prizeRepository,
+                             @Value("${lottery.prize-catalog.max-size:1000}") long maxSize,
+                             @Value("${lottery.prize-catalog.ttl-seconds:300}") long ttlSeconds) {
+        this.prizeRepository = prizeRepository;
+        this.catalogs = new SingleFlightCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+    /**
+     * 獲取活動獎品目錄（未命中時從數據庫載入，同一活動同時只會載入一次；熱門活動在過期前於背景提前刷新）
+     */
+    public PrizeCatalog get(Long activityId) {
+        return catalogs.get(activityId, this::load);
+    }
+
+    /**
+     * 使指定活動的獎品目錄失效（獎品新增、修改、刪除時呼叫）
+     */
+    public void invalidate(Long activityId) {
+        catalogs.invalidate(activityId);
+        log.debug("獎品目錄已失效，活動ID：{}", activityId);
+    }
+
+    public void invalidateAll() {
+        catalogs.invalidateAll();
+    }
+
+    private PrizeCatalog load(Long activityId) {
+        PrizeCatalog catalog = PrizeCatalog.of(
+                activityId,
+                versionSequence.incrementAndGet(),
+                prizeRepository.findByActivityId(activityId)
+        );
+        log.debug("載入獎品目錄，活動ID：{}，版本：{}，獎品數：{}",
+                activityId, catalog.getVersion(), catalog.getPrizes().size());
+        return catalog;
+    }
+}
@@ -0,0 +1,62 @@
+package org.amway.cache;
+
+import lombok.Builder;
+import lombok.Value;
+import org.amway.entity.Prize;
+
+import java.math.BigDecimal;
+
+/**
+ * 獎品不可變快照（抽獎路徑專用，不含庫存等易變欄位）
+ */
+@Value
+@Builder
+public class PrizeSnapshot {
+
+    Long id;
+
+    String name;
+
+    Prize.PrizeType prizeType;
+
+    String description;
+
+    BigDecimal probability;
+
+    /**
+     * 不限庫存
+     */
+    boolean unlimitedStock;
+
+    /**
+     * 庫存分片數（大於 1 時使用分片庫存）
+     */
+    int stockShards;
+
+    public static PrizeSnapshot from(Prize prize) {
+        return PrizeSnapshot.builder()
+                .id(prize.getId())
+                .name(prize.getName())
+                .prizeType(prize.getPrizeType())
+                .description(prize.getDescription())
+                .probability(prize.getProbability())
+                .unlimitedStock(Boolean.TRUE.equals(prize.getUnlimitedStock()))
+                .stockShards(prize.getStockShards() != null ? prize.getStockShards() : 1)
+                .build();
+    }
+
+    public boolean isNoPrize() {
+        return prizeType == Prize.PrizeType.NO_PRIZE;
+    }
+
+    /**
+     * 抽中時是否需要扣減庫存（銘謝惠顧與不限庫存獎品不需要）
+     */
+    public boolean requiresStock() {
+        return !isNoPrize() && !unlimitedStock;
+    }
+
+    public boolean isSharded() {
+        return stockShards > 1;
+    }
+}
@@ -0,0 +1,117 @@
+package org.amway.cache;
+
+import lombok.Getter;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 預先序列化的響應（不可變）
+ * 保存 UTF-8 JSON 與 gzip 兩種表示及其強 ETag，命中時直接寫出位元組，不再經過 Jackson
+ * ETag 由業務數據計算，內容不變時跨節點、跨版本保持一致
+ */
+@Getter
+public final class SerializedResponse {
+
+    /**
+     * 小於此大小的響應不壓縮
+     */
+    static final int GZIP_MIN_BYTES = 1024;
+
+    private static final String GZIP = "gzip";
+
+    /**
+     * 序列化來源，用於判斷快取的響應是否仍對應當前數據
+     */
+    private final Object source;
+
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+    private final String gzipEtag;
+
+    SerializedResponse(Object source, byte[] json, String digest) {
+        this.source = source;
+        this.json = json;
+        this.gzip = json.length >= GZIP_MIN_BYTES ? compress(json) : null;
+        this.etag = "\"" + digest + "\"";
+        this.gzipEtag = "\"" + digest + "-" + GZIP + "\"";
+    }
+
+    /**
+     * 按 If-None-Match 與 Accept-Encoding 生成響應：ETag 相符時返回 304，否則返回預先序列化的位元組
+     */
+    public ResponseEntity<byte[]> toResponseEntity(String ifNoneMatch, String acceptEncoding) {
+        boolean useGzip = gzip != null && acceptsGzip(acceptEncoding);
+        String currentEtag = useGzip ? gzipEtag : etag;
+
+        if (matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .eTag(currentEtag)
+                    .cacheControl(CacheControl.noCache())
+                    .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(currentEtag)
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (useGzip) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, GZIP)
+                    .contentLength(gzip.length)
+                    .body(gzip);
+        }
+        return builder.contentLength(json.length).body(json);
+    }
+
+    /**
+     * If-None-Match 使用弱比較：忽略 W/ 前綴，任一表示（原始 / gzip）的 ETag 相符即可
+     */
+    private boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (GZIP.equalsIgnoreCase(parts[0].trim())) {
+                return parts.length == 1 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private static byte[] compress(byte[] data) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 4);
+        try (GZIPOutputStream gzipOutput = new GZIPOutputStream(output)) {
+            gzipOutput.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException("壓縮響應失敗", e);
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,55 @@
+package org.amway.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import lombok.extern.slf4j.Slf4j;
+import org.amway.dto.response.ApiResponse;
+import org.springframework.stereotype.Component;
+
+/**
+ * 預先序列化響應快取
+ * 以業務快取返回的物件實例作為版本：只要二級快取返回同一個實例就直接複用已序列化的位元組，
+ * 實例更換（L1 刷新、失效後重新載入）時才重新序列化；ETag 由 data 部分的內容計算
+ * ApiResponse.timestamp 為序列化時間
+ */
+@Slf4j
+@Component
+public class SerializedResponseCache {
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, SerializedResponse> responses = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .build();
+
+    public SerializedResponseCache(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 獲取 data 對應的預先序列化響應（包裝為 ApiResponse.success(data)）
+     */
+    public SerializedResponse get(String key, Object data) {
+        SerializedResponse cached = responses.getIfPresent(key);
+        if (cached != null && cached.getSource() == data) {
+            return cached;
+        }
+
+        SerializedResponse serialized = serialize(data);
+        responses.put(key, serialized);
+        log.debug("重新序列化響應，鍵：{}，大小：{} bytes，ETag：{}", key, serialized.getJson().length, serialized.getEtag());
+        return serialized;
+    }
+
+    private SerializedResponse serialize(Object data) {
+        try {
+            byte[] dataBytes = objectMapper.writeValueAsBytes(data);
+            String digest = Hashing.sha256().hashBytes(dataBytes).toString().substring(0, 32);
+            return new SerializedResponse(data, objectMapper.writeValueAsBytes(ApiResponse.success(data)), digest);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("序列化響應失敗", e);
+        }
+    }
+}
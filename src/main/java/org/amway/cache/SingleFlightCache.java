@@ -0,0 +1,150 @@
+package org.amway.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 防擊穿本地快取
+ * 未命中時同一個鍵在本節點只有一個執行緒載入，其他執行緒等待同一個結果（single-flight）
+ * 命中時按 XFetch 機率提前刷新：越接近過期、載入越慢，越可能由一次請求在背景重新載入，其餘請求繼續讀取舊值
+ * 熱門鍵因此在過期前就被刷新，不會在過期瞬間集中打到數據庫；冷門鍵照常過期
+ */
+@Slf4j
+public final class SingleFlightCache<K, V> {
+
+    /**
+     * XFetch 的 beta，大於 1 提前得更早
+     */
+    private static final double BETA = 1.0;
+
+    /**
+     * 刷新窗口下限（TTL 的比例），避免載入極快時窗口過窄、熱門鍵仍然過期
+     */
+    private static final double MIN_DELTA_RATIO = 0.01;
+
+    private static final Executor REFRESH_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("cache-refresh-%d")
+            .setDaemon(true)
+            .build());
+
+    private final Cache<K, Entry<V>> entries;
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+    private final long ttlNanos;
+    private final long minDeltaNanos;
+
+    public SingleFlightCache(long maxSize, Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+        this.minDeltaNanos = (long) (ttlNanos * MIN_DELTA_RATIO);
+        this.entries = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlNanos, TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        return get(key, loader, loader);
+    }
+
+    /**
+     * 讀取快取；未命中時以 loader 同步載入，提前刷新時以 refresher 在背景載入
+     * loader / refresher 返回 null 表示不存在，不快取；loader 拋出的 RuntimeException 原樣拋出
+     */
+    public V get(K key, Function<K, V> loader, Function<K, V> refresher) {
+        Entry<V> entry = entries.getIfPresent(key);
+        if (entry != null) {
+            if (shouldRefresh(entry)) {
+                refreshAsync(key, entry, refresher);
+            }
+            return entry.value();
+        }
+
+        try {
+            return entries.get(key, () -> load(key, loader)).value();
+        } catch (CacheLoader.InvalidCacheLoadException e) {
+            return null;
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("載入快取失敗", e.getCause());
+        }
+    }
+
+    public V getIfPresent(K key) {
+        Entry<V> entry = entries.getIfPresent(key);
+        return entry == null ? null : entry.value();
+    }
+
+    public void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttlNanos, 0));
+    }
+
+    public void invalidate(K key) {
+        entries.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        entries.invalidateAll();
+    }
+
+    /**
+     * XFetch：now - delta * beta * ln(rand) >= expiry 時提前刷新
+     */
+    private boolean shouldRefresh(Entry<V> entry) {
+        double delta = Math.max(entry.deltaNanos(), minDeltaNanos);
+        double random = ThreadLocalRandom.current().nextDouble();
+        return System.nanoTime() - delta * BETA * Math.log(random) >= entry.expiresAtNanos();
+    }
+
+    /**
+     * 每個鍵同時只有一個背景刷新；刷新期間鍵被失效或已被其他執行緒重新載入時放棄結果，避免覆蓋
+     */
+    private void refreshAsync(K key, Entry<V> current, Function<K, V> refresher) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        CompletableFuture
+                .runAsync(() -> {
+                    Entry<V> fresh = load(key, refresher);
+                    if (fresh == null) {
+                        entries.asMap().remove(key, current);
+                    } else {
+                        entries.asMap().replace(key, current, fresh);
+                    }
+                }, REFRESH_EXECUTOR)
+                .whenComplete((result, error) -> {
+                    refreshing.remove(key);
+                    if (error != null) {
+                        log.warn("快取提前刷新失敗，繼續使用舊值直到過期，鍵：{}", key, error);
+                    }
+                });
+    }
+
+    private Entry<V> load(K key, Function<K, V> loader) {
+        long started = System.nanoTime();
+        V value = loader.apply(key);
+        if (value == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        return new Entry<>(value, now + ttlNanos, now - started);
+    }
+
+    private record Entry<V>(V value, long expiresAtNanos, long deltaNanos) {
+    }
+}
@@ -0,0 +1,108 @@
+package org.amway.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+/**
+ * 二級快取：本地 Guava（L1）+ Redis（L2）
+ * 讀取先查 L1，未命中再查 L2 並回填 L1；evict / clear 同時清除 L2、本地 L1，並廣播讓其他節點清除各自的 L1
+ * put 只寫入本節點（@Cacheable 回填），跨節點一致性依賴 evict；L1 命中時返回同一個物件實例，調用方不得修改
+ * L1 未命中時同一個鍵在本節點只有一個執行緒訪問 L2 / 執行方法（配合 @Cacheable(sync = true)），熱門鍵在 L1 過期前於背景從 L2 刷新
+ */
+public class TwoLevelCache implements Cache {
+
+    private final Cache remote;
+    private final SingleFlightCache<Object, ValueWrapper> local;
+    private final CacheInvalidationBus invalidationBus;
+
+    public TwoLevelCache(Cache remote, CacheInvalidationBus invalidationBus, long maxSize, long ttlSeconds) {
+        this.remote = remote;
+        this.invalidationBus = invalidationBus;
+        this.local = new SingleFlightCache<>(maxSize, Duration.ofSeconds(ttlSeconds));
+    }
+
+    @Override
+    public String getName() {
+        return remote.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return local.get(key, remote::get);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("快取值類型不符，期望：" + type.getName() + "，實際：" + value.getClass().getName());
+        }
+        return (T) value;
+    }
+
+    /**
+     * 背景刷新只從 L2 讀取，不在請求執行緒以外呼叫 valueLoader（L2 也已過期時等條目過期後由請求同步載入）
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = local.get(key, k -> loadThrough(k, valueLoader), remote::get);
+        return (T) wrapper.get();
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        local.put(key, new SimpleValueWrapper(value));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        local.invalidate(key);
+        invalidationBus.publish(getName(), key);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationBus.publish(getName(), null);
+    }
+
+    private ValueWrapper loadThrough(Object key, Callable<?> valueLoader) {
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper != null) {
+            return wrapper;
+        }
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        remote.put(key, value);
+        return new SimpleValueWrapper(value);
+    }
+
+    /**
+     * 只清除本節點 L1（收到其他節點的失效消息時呼叫）；key 為 null 表示清空
+     */
+    void evictLocal(Object key) {
+        if (key == null) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package org.amway.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 二級快取管理器：為遠端快取管理器（Redis）的每個快取套上本地 L1，並訂閱其失效廣播
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager remote;
+    private final CacheInvalidationBus invalidationBus;
+    private final long localMaxSize;
+    private final long localTtlSeconds;
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remote, CacheInvalidationBus invalidationBus,
+                                long localMaxSize, long localTtlSeconds) {
+        this.remote = remote;
+        this.invalidationBus = invalidationBus;
+        this.localMaxSize = localMaxSize;
+        this.localTtlSeconds = localTtlSeconds;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::create);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private TwoLevelCache create(String name) {
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        TwoLevelCache cache = new TwoLevelCache(remoteCache, invalidationBus, localMaxSize, localTtlSeconds);
+        invalidationBus.subscribe(name, cache::evictLocal);
+        return cache;
+    }
+}
@@ -0,0 +1,42 @@
+package org.amway.config;
+
+import org.amway.util.IdGenerator;
+import org.amway.util.NodeIdLease;
+import org.amway.util.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+
+@Configuration
+public class IdGeneratorConfig {
+
+    /**
+     * 節點ID（0-1023）；未配置時從 Redis 分配，配置時在 Redis 中校驗唯一
+     */
+    @Value("${lottery.id.node-id:}")
+    private String nodeId;
+
+    @Value("${lottery.id.lease-seconds:30}")
+    private long leaseSeconds;
+
+    /**
+     * 本實例的節點ID租約（其他組件經 #{@nodeIdLease.nodeId} 讀取節點ID）
+     */
+    @Bean(destroyMethod = "release")
+    public NodeIdLease nodeIdLease(StringRedisTemplate stringRedisTemplate) {
+        Long configured = StringUtils.hasText(nodeId) ? Long.valueOf(nodeId.trim()) : null;
+        return new NodeIdLease(stringRedisTemplate, configured, Duration.ofSeconds(leaseSeconds));
+    }
+
+    /**
+     * 抽獎記錄 ID 生成器
+     */
+    @Bean
+    public IdGenerator drawRecordIdGenerator(NodeIdLease nodeIdLease) {
+        return new SnowflakeIdGenerator(nodeIdLease.getNodeId());
+    }
+}
@@ -1,13 +1,22 @@
 package org.amway.controller;
 
+import org.amway.annotation.RateLimit;
+import org.amway.cache.SerializedResponseCache;
 import org.amway.dto.response.ActivityResponse;
+import org.amway.dto.response.ActivityStockResponse;
 import org.amway.dto.response.ApiResponse;
 import org.amway.service.ActivityService;
+import org.amway.service.stock.PrizeStockStream;
+import org.amway.service.stock.PrizeStockView;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -18,20 +27,46 @@ import java.util.List;
 public class ActivityController {
     
     private final ActivityService activityService;
+    private final SerializedResponseCache serializedResponseCache;
+    private final PrizeStockView prizeStockView;
+    private final PrizeStockStream prizeStockStream;
     
     @GetMapping
-    @Operation(summary = "查詢進行中的活動", description = "獲取所有正在進行中的抽獎活動列表")
-    public ApiResponse<List<ActivityResponse>> getActiveActivities() {
+    @Operation(summary = "查詢進行中的活動", description = "獲取所有正在進行中的抽獎活動列表（支持 ETag / If-None-Match 與 gzip）")
+    public ResponseEntity<byte[]> getActiveActivities(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         List<ActivityResponse> activities = activityService.getActiveActivities();
-        return ApiResponse.success(activities);
+        return serializedResponseCache.get("activities", activities)
+                .toResponseEntity(ifNoneMatch, acceptEncoding);
     }
     
     @GetMapping("/{id}")
-    @Operation(summary = "查詢活動詳情", description = "根據ID查詢活動的詳細信息，包括獎品列表")
-    public ApiResponse<ActivityResponse> getActivityDetail(
+    @Operation(summary = "查詢活動詳情", description = "根據ID查詢活動的詳細信息，包括獎品列表（支持 ETag / If-None-Match 與 gzip）")
+    public ResponseEntity<byte[]> getActivityDetail(
             @Parameter(description = "活動ID", required = true)
-            @PathVariable Long id) {
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         ActivityResponse activity = activityService.getActivityDetail(id);
-        return ApiResponse.success(activity);
+        return serializedResponseCache.get("activity:" + id, activity)
+                .toResponseEntity(ifNoneMatch, acceptEncoding);
+    }
+
+    @GetMapping("/{id}/stock")
+    @Operation(summary = "查詢活動即時庫存", description = "獲取活動各獎品的剩餘庫存（與活動詳情分開，不受活動快取影響）")
+    public ApiResponse<ActivityStockResponse> getActivityStock(
+            @Parameter(description = "活動ID", required = true)
+            @PathVariable Long id) {
+        return ApiResponse.success(prizeStockView.get(id));
+    }
+
+    @GetMapping(value = "/{id}/stock/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @RateLimit
+    @Operation(summary = "訂閱活動即時庫存", description = "SSE 推送活動各獎品的剩餘庫存，庫存變化時推送 stock 事件（訂閱數已滿時返回 429）")
+    public SseEmitter streamActivityStock(
+            @Parameter(description = "活動ID", required = true)
+            @PathVariable Long id) {
+        return prizeStockStream.subscribe(id);
     }
-}
\ No newline at end of file
+}
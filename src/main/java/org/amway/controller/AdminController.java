@@ -0,0 +1,59 @@
+package org.amway.controller;
+
+import org.amway.dto.request.ActivityStatusRequest;
+import org.amway.dto.response.ActivityResponse;
+import org.amway.dto.response.ApiResponse;
+import org.amway.dto.response.WarmupStatusResponse;
+import org.amway.service.ActivityService;
+import org.amway.service.warmup.ActivityWarmupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@Tag(name = "系統管理", description = "管理員運維API")
+@SecurityRequirement(name = "Bearer Authentication")
+public class AdminController {
+
+    private final ActivityWarmupService warmupService;
+    private final ActivityService activityService;
+
+    @GetMapping("/warmup")
+    @Operation(summary = "查詢本節點預熱狀態", description = "查詢處理請求的節點上各活動的預熱狀態")
+    public ApiResponse<List<WarmupStatusResponse>> getLocalWarmupStatuses() {
+        return ApiResponse.success(warmupService.getLocalStatuses());
+    }
+
+    @GetMapping("/warmup/{activityId}")
+    @Operation(summary = "查詢活動預熱狀態", description = "查詢所有節點對指定活動的預熱狀態")
+    public ApiResponse<List<WarmupStatusResponse>> getWarmupStatuses(
+            @Parameter(description = "活動ID", required = true)
+            @PathVariable Long activityId) {
+        return ApiResponse.success(warmupService.getClusterStatuses(activityId));
+    }
+
+    @PostMapping("/warmup/{activityId}")
+    @Operation(summary = "立即預熱活動", description = "在處理請求的節點上立即預熱指定活動")
+    public ApiResponse<WarmupStatusResponse> warmup(
+            @Parameter(description = "活動ID", required = true)
+            @PathVariable Long activityId) {
+        return ApiResponse.success(warmupService.warm(activityId));
+    }
+
+    @PutMapping("/activities/{activityId}/status")
+    @Operation(summary = "更新活動狀態", description = "上線、停用或結束活動，各節點的進行中活動集合隨之更新")
+    public ApiResponse<ActivityResponse> updateActivityStatus(
+            @Parameter(description = "活動ID", required = true)
+            @PathVariable Long activityId,
+            @Valid @RequestBody ActivityStatusRequest request) {
+        return ApiResponse.success(activityService.updateStatus(activityId, request.getStatus()));
+    }
+}
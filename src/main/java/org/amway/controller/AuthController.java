@@ -7,17 +7,20 @@ import org.amway.entity.User;
 import org.amway.exception.BusinessException;
 import org.amway.exception.enums.ErrorCode;
 import org.amway.repository.UserRepository;
+import org.amway.security.CredentialVerifier;
+import org.amway.security.JwtPrincipal;
 import org.amway.security.JwtUtil;
+import org.amway.security.TokenBlacklist;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -26,19 +29,27 @@ import java.util.Map;
 public class AuthController {
     
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final CredentialVerifier credentialVerifier;
     private final JwtUtil jwtUtil;
+    private final TokenBlacklist tokenBlacklist;
     
     @PostMapping("/login")
     @Operation(summary = "用戶登入", description = "返回 Access Token 和 Refresh Token")
-    public ApiResponse<Map<String, Object>> login(@Valid @RequestBody LoginRequest request) {
+    public CompletableFuture<ApiResponse<Map<String, Object>>> login(@Valid @RequestBody LoginRequest request) {
         User user = userRepository.findByUsername(request.getUsername())
                 .orElseThrow(() -> new BusinessException(ErrorCode.UNAUTHORIZED, "用戶名或密碼錯誤"));
         
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
-            throw new BusinessException(ErrorCode.UNAUTHORIZED, "用戶名或密碼錯誤");
-        }
-        
+        // 密碼校驗在專用執行緒池中完成，Servlet 執行緒在此返回，不等待 BCrypt
+        return credentialVerifier.matches(user.getUsername(), request.getPassword(), user.getPassword())
+                .thenApply(matched -> {
+                    if (!matched) {
+                        throw new BusinessException(ErrorCode.UNAUTHORIZED, "用戶名或密碼錯誤");
+                    }
+                    return ApiResponse.success("登入成功", issueTokens(user));
+                });
+    }
+    
+    private Map<String, Object> issueTokens(User user) {
         String accessToken = jwtUtil.generateAccessToken(
             user.getUsername(), 
             user.getId(), 
@@ -57,8 +68,7 @@ public class AuthController {
         data.put("userId", user.getId());
         data.put("username", user.getUsername());
         data.put("role", user.getRole().name());
-        
-        return ApiResponse.success("登入成功", data);
+        return data;
     }
     
     @PostMapping("/refresh")
@@ -66,17 +76,19 @@ public class AuthController {
     public ApiResponse<Map<String, Object>> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
         String refreshToken = request.getRefreshToken();
         
-        Long userId = jwtUtil.extractUserId(refreshToken);
-        String username = jwtUtil.extractUsername(refreshToken);
-        String role = jwtUtil.extractRole(refreshToken);
+        JwtPrincipal principal = jwtUtil.verify(refreshToken);
         
         // 驗證 Refresh Token
-        if (!jwtUtil.validateRefreshToken(refreshToken, userId)) {
+        if (!jwtUtil.validateRefreshToken(refreshToken, principal.getUserId())) {
             throw new BusinessException(ErrorCode.UNAUTHORIZED, "Refresh Token 無效或已過期");
         }
         
         // 生成新的 Access Token
-        String newAccessToken = jwtUtil.generateAccessToken(username, userId, role);
+        String newAccessToken = jwtUtil.generateAccessToken(
+            principal.getUsername(), 
+            principal.getUserId(), 
+            principal.getRole()
+        );
         
         Map<String, Object> data = new HashMap<>();
         data.put("accessToken", newAccessToken);
@@ -96,7 +108,7 @@ public class AuthController {
         String token = authHeader.substring(7);
         
         // 加入黑名單
-        jwtUtil.blacklistToken(token);
+        tokenBlacklist.revoke(jwtUtil.verify(token));
         
         // 撤銷 Refresh Token
         jwtUtil.revokeRefreshToken(userId);
@@ -0,0 +1,19 @@
+package org.amway.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.amway.entity.LotteryActivity;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "活動狀態更新請求")
+public class ActivityStatusRequest {
+
+    @NotNull(message = "活動狀態不能為空")
+    @Schema(description = "活動狀態（ACTIVE / INACTIVE / ENDED）", example = "INACTIVE")
+    private LotteryActivity.ActivityStatus status;
+}
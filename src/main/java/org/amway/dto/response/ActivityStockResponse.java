@@ -0,0 +1,27 @@
+package org.amway.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "活動即時庫存響應")
+public class ActivityStockResponse {
+
+    @Schema(description = "活動ID")
+    private Long activityId;
+
+    @Schema(description = "庫存讀取時間")
+    private LocalDateTime updatedAt;
+
+    @Schema(description = "各獎品剩餘庫存")
+    private List<PrizeStockResponse> prizes;
+}
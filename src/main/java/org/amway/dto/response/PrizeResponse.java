@@ -27,9 +27,17 @@ public class PrizeResponse {
     @Schema(description = "總庫存")
     private Integer totalStock;
     
-    @Schema(description = "剩餘庫存")
+    /**
+     * 過渡期保留：值為活動快取建立時的快照，可能落後於實際庫存，
+     * 即時庫存請改用 GET /api/activities/{id}/stock，後續版本將移除
+     */
+    @Deprecated
+    @Schema(description = "剩餘庫存（已棄用：快取時的快照，可能落後；請改用 GET /api/activities/{id}/stock）", deprecated = true)
     private Integer remainingStock;
-    
+
+    @Schema(description = "是否不限庫存")
+    private Boolean unlimitedStock;
+
     @Schema(description = "中獎機率")
     private BigDecimal probability;
     
@@ -0,0 +1,24 @@
+package org.amway.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "獎品即時庫存")
+public class PrizeStockResponse {
+
+    @Schema(description = "獎品ID")
+    private Long prizeId;
+
+    @Schema(description = "剩餘庫存（不限庫存或銘謝惠顧時為空）")
+    private Integer remainingStock;
+
+    @Schema(description = "是否不限庫存")
+    private Boolean unlimitedStock;
+}
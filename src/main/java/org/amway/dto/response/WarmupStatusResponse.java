@@ -0,0 +1,41 @@
+package org.amway.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "活動預熱狀態")
+public class WarmupStatusResponse {
+
+    @Schema(description = "活動ID")
+    private Long activityId;
+
+    @Schema(description = "活動名稱")
+    private String activityName;
+
+    @Schema(description = "活動開始時間")
+    private LocalDateTime startTime;
+
+    @Schema(description = "節點號")
+    private Long nodeId;
+
+    @Schema(description = "預熱狀態：WARMING、READY、FAILED")
+    private String status;
+
+    @Schema(description = "預熱完成時間")
+    private LocalDateTime warmedAt;
+
+    @Schema(description = "預熱耗時（毫秒）")
+    private Long durationMillis;
+
+    @Schema(description = "失敗原因")
+    private String message;
+}
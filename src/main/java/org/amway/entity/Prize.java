@@ -1,10 +1,13 @@
 package org.amway.entity;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.math.BigDecimal;
@@ -37,6 +40,25 @@ public class Prize {
     @Column(name = "remaining_stock", nullable = false)
     private Integer remainingStock = 0;
 
+    /**
+     * 不限庫存（如銘謝惠顧、無限量虛擬獎品），抽中時不鎖定、不扣減庫存
+     */
+    @Column(name = "unlimited_stock", nullable = false)
+    private Boolean unlimitedStock = false;
+
+    /**
+     * 庫存分片數，大於 1 時剩餘庫存拆分到 prize_stock_shards 以分散熱點
+     */
+    @Column(name = "stock_shards", nullable = false)
+    private Integer stockShards = 1;
+
+    /**
+     * 分片庫存總和（載入時由數據庫即時計算，尚未建立分片時為 null）
+     */
+    @Formula("(SELECT SUM(s.remaining_stock) FROM prize_stock_shards s WHERE s.prize_id = id)")
+    @Setter(AccessLevel.NONE)
+    private Integer shardedRemainingStock;
+
     @Column(nullable = false, precision = 10, scale = 6)
     private BigDecimal probability;
 
@@ -61,17 +83,30 @@ public class Prize {
         NO_PRIZE    // 銘謝惠顧
     }
 
+    /**
+     * 剩餘庫存；已建立分片的獎品返回分片總和（prizes.remaining_stock 只定時回寫，可能落後）
+     */
+    public Integer getRemainingStock() {
+        if (stockShards != null && stockShards > 1 && shardedRemainingStock != null) {
+            return shardedRemainingStock;
+        }
+        return remainingStock;
+    }
+
     /**
      * 檢查是否還有庫存
      */
     public boolean hasStock() {
-        return remainingStock > 0;
+        return Boolean.TRUE.equals(unlimitedStock) || getRemainingStock() > 0;
     }
 
     /**
      * 減少庫存
      */
     public void decreaseStock(int count) {
+        if (Boolean.TRUE.equals(unlimitedStock)) {
+            return;
+        }
         if (remainingStock >= count) {
             this.remainingStock -= count;
         } else {
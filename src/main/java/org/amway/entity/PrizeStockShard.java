@@ -0,0 +1,39 @@
+package org.amway.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * 獎品庫存分片
+ * 熱門獎品的剩餘庫存拆分為多個分片，分散單行競爭；分片總和即為實際剩餘庫存
+ */
+@Entity
+@Table(name = "prize_stock_shards",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"prize_id", "shard_no"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrizeStockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "prize_id", nullable = false)
+    private Long prizeId;
+
+    @Column(name = "shard_no", nullable = false)
+    private Integer shardNo;
+
+    @Column(name = "remaining_stock", nullable = false)
+    private Integer remainingStock = 0;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
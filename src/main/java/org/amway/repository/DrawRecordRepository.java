@@ -2,8 +2,11 @@ package org.amway.repository;
 
 import org.amway.entity.DrawRecord;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -12,4 +15,22 @@ public interface DrawRecordRepository extends JpaRepository<DrawRecord, Long> {
     List<DrawRecord> findByUserId(Long userId);
 
     List<DrawRecord> findByUserIdAndActivityId(Long userId, Long activityId);
+
+    long countByUserIdAndActivityId(Long userId, Long activityId);
+
+    /**
+     * 統計用戶在 [from, to) 期間的抽獎次數
+     */
+    @Query("SELECT COUNT(r) FROM DrawRecord r WHERE r.user.id = :userId AND r.activity.id = :activityId " +
+            "AND r.drawTime >= :from AND r.drawTime < :to")
+    long countDraws(@Param("userId") Long userId,
+                    @Param("activityId") Long activityId,
+                    @Param("from") LocalDateTime from,
+                    @Param("to") LocalDateTime to);
+
+    /**
+     * 統計獎品已發出的數量（中獎記錄數，用於 Redis 庫存丟失後對帳）
+     */
+    @Query("SELECT COUNT(r) FROM DrawRecord r WHERE r.prize.id = :prizeId AND r.isWinning = true")
+    long countWinningDraws(@Param("prizeId") Long prizeId);
 }
@@ -14,4 +14,17 @@ public interface LotteryActivityRepository extends JpaRepository<LotteryActivity
     @Query("SELECT a FROM LotteryActivity a WHERE a.status = 'ACTIVE' " +
             "AND a.startTime <= :now AND a.endTime >= :now")
     List<LotteryActivity> findActiveActivities(LocalDateTime now);
+
+    /**
+     * 即將開始的活動（startTime 在 (from, to] 之間），用於活動開始前預熱
+     */
+    @Query("SELECT a FROM LotteryActivity a WHERE a.status = 'ACTIVE' " +
+            "AND a.startTime > :from AND a.startTime <= :to")
+    List<LotteryActivity> findUpcomingActivities(LocalDateTime from, LocalDateTime to);
+
+    /**
+     * 未結束的 ACTIVE 活動（含未開始），用於載入活動時間軸
+     */
+    @Query("SELECT a FROM LotteryActivity a WHERE a.status = 'ACTIVE' AND a.endTime > :now")
+    List<LotteryActivity> findSchedulableActivities(LocalDateTime now);
 }
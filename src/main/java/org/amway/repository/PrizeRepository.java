@@ -3,12 +3,15 @@ package org.amway.repository;
 import org.amway.entity.Prize;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import jakarta.persistence.LockModeType;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,7 +20,35 @@ public interface PrizeRepository extends JpaRepository<Prize, Long> {
 
     List<Prize> findByActivityId(Long activityId);
 
+    /**
+     * 批量查詢多個活動的獎品（活動列表一次查詢，避免逐個活動查詢的 N+1）
+     */
+    List<Prize> findByActivityIdIn(Collection<Long> activityIds);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("SELECT p FROM Prize p WHERE p.id = :prizeId")
     Optional<Prize> findByIdWithLock(@Param("prizeId") Long prizeId);
+
+    /**
+     * 條件扣減庫存（只適用於未分片的獎品），影響行數為 0 表示庫存不足或獎品已改為分片
+     * 分片獎品的 remaining_stock 由分片總和回寫覆蓋，持有過期快照的節點不能扣減此欄位
+     */
+    @Modifying
+    @Query("UPDATE Prize p SET p.remainingStock = p.remainingStock - :quantity " +
+            "WHERE p.id = :prizeId AND p.remainingStock >= :quantity AND p.stockShards <= 1")
+    int decreaseStockIfAvailable(@Param("prizeId") Long prizeId, @Param("quantity") int quantity);
+
+    @Query("SELECT p.remainingStock FROM Prize p WHERE p.id = :prizeId")
+    Optional<Integer> findRemainingStockById(@Param("prizeId") Long prizeId);
+
+    @Query("SELECT p.stockShards FROM Prize p WHERE p.id = :prizeId")
+    Optional<Integer> findStockShardsById(@Param("prizeId") Long prizeId);
+
+    /**
+     * 回寫剩餘庫存（Redis 庫存引擎異步同步使用）
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Prize p SET p.remainingStock = :remainingStock WHERE p.id = :prizeId")
+    int updateRemainingStock(@Param("prizeId") Long prizeId, @Param("remainingStock") int remainingStock);
 }
@@ -0,0 +1,55 @@
+package org.amway.repository;
+
+import jakarta.persistence.LockModeType;
+import org.amway.entity.PrizeStockShard;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PrizeStockShardRepository extends JpaRepository<PrizeStockShard, Long> {
+
+    long countByPrizeId(Long prizeId);
+
+    /**
+     * 鎖定獎品的全部分片（補貨 / 調整分片數時阻止併發扣減）
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PrizeStockShard s WHERE s.prizeId = :prizeId ORDER BY s.shardNo")
+    List<PrizeStockShard> findByPrizeIdWithLock(@Param("prizeId") Long prizeId);
+
+    @Modifying
+    @Query("DELETE FROM PrizeStockShard s WHERE s.prizeId = :prizeId")
+    int deleteByPrizeId(@Param("prizeId") Long prizeId);
+
+    /**
+     * 條件扣減分片庫存，影響行數為 0 表示該分片不足
+     */
+    @Modifying
+    @Query("UPDATE PrizeStockShard s SET s.remainingStock = s.remainingStock - :quantity " +
+            "WHERE s.prizeId = :prizeId AND s.shardNo = :shardNo AND s.remainingStock >= :quantity")
+    int decreaseStockIfAvailable(@Param("prizeId") Long prizeId,
+                                 @Param("shardNo") int shardNo,
+                                 @Param("quantity") int quantity);
+
+    @Query("SELECT s.remainingStock FROM PrizeStockShard s WHERE s.prizeId = :prizeId AND s.shardNo = :shardNo")
+    Optional<Integer> findRemainingStock(@Param("prizeId") Long prizeId, @Param("shardNo") int shardNo);
+
+    /**
+     * 將分片庫存總和回寫到 prizes.remaining_stock
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE prizes p SET p.remaining_stock = " +
+            "(SELECT COALESCE(SUM(s.remaining_stock), 0) FROM prize_stock_shards s WHERE s.prize_id = p.id) " +
+            "WHERE p.stock_shards > 1 AND EXISTS (SELECT 1 FROM prize_stock_shards s WHERE s.prize_id = p.id)",
+            nativeQuery = true)
+    int syncPrizeRemainingStock();
+}
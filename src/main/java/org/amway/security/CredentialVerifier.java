@@ -0,0 +1,123 @@
+package org.amway.security;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.amway.exception.BusinessException;
+import org.amway.exception.enums.ErrorCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 登入密碼校驗
+ * BCrypt 每次約 100ms CPU，在專用的有界執行緒池中計算（執行緒數不超過 CPU 核數），結果以 CompletableFuture 返回，
+ * 登入高峰時 Servlet 執行緒既不計算也不等待，不會拖慢抽獎
+ * 等待隊列滿時立即拒絕（429），不讓請求在隊列中排到超時
+ * 校驗成功的憑證短時間快取：鍵為「用戶名 + 密碼」的 HMAC（金鑰每個節點啟動時隨機生成，不保存明文或可離線破解的摘要），
+ * 值為當時的密碼雜湊，密碼修改後雜湊不同即失效；校驗失敗不快取，每次都執行 BCrypt
+ */
+@Slf4j
+@Component
+public class CredentialVerifier {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final HashFunction credentialHash;
+    private final Cache<String, String> verifiedCredentials;
+
+    public CredentialVerifier(PasswordEncoder passwordEncoder,
+                              @Value("${lottery.login.threads:0}") int threads,
+                              @Value("${lottery.login.queue-capacity:64}") int queueCapacity,
+                              @Value("${lottery.login.timeout-ms:3000}") long timeoutMillis,
+                              @Value("${lottery.login.credential-cache.max-size:10000}") long cacheMaxSize,
+                              @Value("${lottery.login.credential-cache.ttl-seconds:300}") long cacheTtlSeconds) {
+        this.passwordEncoder = passwordEncoder;
+        this.timeoutMillis = timeoutMillis;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new ThreadFactoryBuilder().setNameFormat("password-hash-%d").setDaemon(true).build(),
+                new ThreadPoolExecutor.AbortPolicy());
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        this.credentialHash = Hashing.hmacSha256(key);
+        this.verifiedCredentials = CacheBuilder.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfterWrite(cacheTtlSeconds, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * 非同步校驗密碼，請求執行緒不等待 BCrypt
+     * 隊列已滿或超過 timeout-ms 未完成時，返回的 Future 以 RATE_LIMIT_EXCEEDED 失敗
+     */
+    public CompletableFuture<Boolean> matches(String username, String rawPassword, String encodedPassword) {
+        String cacheKey = credentialHash.newHasher()
+                .putString(username, StandardCharsets.UTF_8)
+                .putByte((byte) 0)
+                .putString(rawPassword, StandardCharsets.UTF_8)
+                .hash()
+                .toString();
+        if (encodedPassword.equals(verifiedCredentials.getIfPresent(cacheKey))) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        return hash(rawPassword, encodedPassword).thenApply(matched -> {
+            if (matched) {
+                verifiedCredentials.put(cacheKey, encodedPassword);
+            }
+            return matched;
+        });
+    }
+
+    /**
+     * 超時只結束等待，不會停止計算：BCrypt 不檢查中斷，已開始的任務會跑完並丟棄結果，
+     * 這部分浪費由執行緒數封頂（每個執行緒最多一次約 100ms）；仍在隊列中就已超時的任務開始前直接跳過
+     */
+    private CompletableFuture<Boolean> hash(String rawPassword, String encodedPassword) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                try {
+                    result.complete(passwordEncoder.matches(rawPassword, encodedPassword));
+                } catch (RuntimeException e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("登入校驗隊列已滿，拒絕請求，等待數：{}", executor.getQueue().size());
+            return CompletableFuture.failedFuture(
+                    new BusinessException(ErrorCode.RATE_LIMIT_EXCEEDED, "登入人數過多，請稍後再試"));
+        }
+
+        return result.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS)
+                .exceptionallyCompose(error -> CompletableFuture.failedFuture(error instanceof TimeoutException
+                        ? new BusinessException(ErrorCode.RATE_LIMIT_EXCEEDED, "登入人數過多，請稍後再試")
+                        : error));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
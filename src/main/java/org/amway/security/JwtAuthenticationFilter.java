@@ -20,6 +20,7 @@ import java.util.Collections;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
+    private final TokenBlacklist tokenBlacklist;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
@@ -29,14 +30,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String token = authHeader.substring(7);
 
             try {
-                String username = jwtUtil.extractUsername(token);
+                if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                    // 每個請求只驗證一次（重複的 Token 命中驗證快取，不再計算簽名）；黑名單每次都檢查，本地過濾器未命中時不訪問 Redis
+                    JwtPrincipal principal = jwtUtil.verify(token);
 
-                if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    if (jwtUtil.validateToken(token, username)) {
-                        Long userId = jwtUtil.extractUserId(token);
-                        String role = jwtUtil.extractRole(token);
-
-                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(userId, null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role)));
+                    if (!tokenBlacklist.isRevoked(principal)) {
+                        UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(principal.getUserId(), null, Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + principal.getRole())));
 
                         authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                         SecurityContextHolder.getContext().setAuthentication(authToken);
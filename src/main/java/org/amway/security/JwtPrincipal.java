@@ -0,0 +1,34 @@
+package org.amway.security;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * 已驗證 Token 的不可變聲明（簽名驗證一次後在請求內與驗證快取中共用）
+ */
+@Value
+@Builder
+public class JwtPrincipal {
+
+    /**
+     * Token 唯一標識（jti；舊 Token 沒有 jti 時為 Token 的 SHA-256 摘要），用於黑名單
+     */
+    String tokenId;
+
+    String username;
+
+    Long userId;
+
+    String role;
+
+    /**
+     * ACCESS / REFRESH
+     */
+    String type;
+
+    long expiresAtMillis;
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAtMillis;
+    }
+}
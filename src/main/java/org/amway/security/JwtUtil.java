@@ -1,9 +1,15 @@
 package org.amway.security;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
@@ -13,6 +19,7 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
 @Component
@@ -27,15 +34,39 @@ public class JwtUtil {
     @Value("${jwt.refresh-token-expiration:604800000}") // 7天
     private Long refreshTokenExpiration;
 
+    @Value("${jwt.verified-cache.max-size:10000}")
+    private long verifiedCacheMaxSize;
+
+    @Value("${jwt.verified-cache.ttl-seconds:300}")
+    private long verifiedCacheTtlSeconds;
+
     private final RedisTemplate<String, Object> redisTemplate;
 
+    private Key signingKey;
+    private JwtParser parser;
+
+    /**
+     * 最近驗證通過的 Token（重複請求不再驗證簽名；命中時仍按 Token 自身的過期時間檢查）
+     */
+    private Cache<String, JwtPrincipal> verifiedTokens;
+
     public JwtUtil(RedisTemplate<String, Object> redisTemplate) {
         this.redisTemplate = redisTemplate;
     }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * 金鑰與解析器只建立一次（JwtParser 不可變，可在執行緒間共用）
+     */
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        verifiedTokens = CacheBuilder.newBuilder()
+                .maximumSize(verifiedCacheMaxSize)
+                .expireAfterWrite(verifiedCacheTtlSeconds, TimeUnit.SECONDS)
+                .build();
     }
 
     /**
@@ -67,78 +98,53 @@ public class JwtUtil {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(username)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public Claims extractClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    public String extractUsername(String token) {
-        return extractClaims(token).getSubject();
-    }
-
-    public Long extractUserId(String token) {
-        return extractClaims(token).get("userId", Long.class);
-    }
-
-    public String extractRole(String token) {
-        return extractClaims(token).get("role", String.class);
-    }
-
-    public boolean isTokenExpired(String token) {
-        return extractClaims(token).getExpiration().before(new Date());
-    }
-
     /**
-     * 驗證 Token（檢查黑名單）
+     * 驗證 Token 並返回聲明（每個 Token 只驗證一次簽名，之後直到過期都從快取返回）
+     * 簽名無效、格式錯誤或已過期時拋出 JwtException；不檢查黑名單（見 TokenBlacklist）
      */
-    public boolean validateToken(String token, String username) {
-        // 檢查是否在黑名單中
-        if (isTokenBlacklisted(token)) {
-            return false;
+    public JwtPrincipal verify(String token) {
+        long now = System.currentTimeMillis();
+        JwtPrincipal cached = verifiedTokens.getIfPresent(token);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached;
+            }
+            verifiedTokens.invalidate(token);
         }
 
-        return (username.equals(extractUsername(token)) && !isTokenExpired(token));
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        JwtPrincipal principal = JwtPrincipal.builder()
+                .tokenId(claims.getId() != null ? claims.getId()
+                        : Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString())
+                .username(claims.getSubject())
+                .userId(claims.get("userId", Long.class))
+                .role(claims.get("role", String.class))
+                .type(claims.get("type", String.class))
+                .expiresAtMillis(claims.getExpiration().getTime())
+                .build();
+        if (principal.isExpired(now)) {
+            // 解析與過期檢查之間跨過了過期時間
+            throw new ExpiredJwtException(null, claims, "Token 已過期");
+        }
+        verifiedTokens.put(token, principal);
+        return principal;
     }
 
     /**
-     * 驗證 Refresh Token（檢查白名單）
+     * 驗證 Refresh Token（檢查白名單；簽名與過期時間由 verify 檢查）
      */
     public boolean validateRefreshToken(String refreshToken, Long userId) {
         String redisKey = "refresh_token:" + userId;
         String storedToken = (String) redisTemplate.opsForValue().get(redisKey);
 
-        return refreshToken.equals(storedToken) && !isTokenExpired(refreshToken);
-    }
-
-    /**
-     * 將 Token 加入黑名單（用戶登出或修改密碼）
-     */
-    public void blacklistToken(String token) {
-        Claims claims = extractClaims(token);
-        Date expiration = claims.getExpiration();
-        long ttl = expiration.getTime() - System.currentTimeMillis();
-
-        if (ttl > 0) {
-            String redisKey = "blacklist:" + token;
-            redisTemplate.opsForValue().set(redisKey, "1", ttl, TimeUnit.MILLISECONDS);
-        }
-    }
-
-    /**
-     * 檢查 Token 是否在黑名單中
-     */
-    public boolean isTokenBlacklisted(String token) {
-        String redisKey = "blacklist:" + token;
-        return Boolean.TRUE.equals(redisTemplate.hasKey(redisKey));
+        return refreshToken.equals(storedToken);
     }
 
     /**
@@ -0,0 +1,127 @@
+package org.amway.security;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import lombok.extern.slf4j.Slf4j;
+import org.amway.cache.CacheInvalidationBus;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token 黑名單（登出後在過期前拒絕使用）
+ * Redis 以 jti 為鍵保存黑名單（blacklist:{jti}，TTL 為 Token 剩餘有效期），並在 ZSET 中按過期時間索引
+ * 每個節點在本地維護 Bloom 過濾器，過濾器未命中即可確定未被撤銷，只有命中（已撤銷或誤判）時才查詢 Redis
+ * 撤銷經失效廣播即時加入其他節點的過濾器；定時從 ZSET 全量重建，廣播丟失時的最長延遲為重建間隔
+ */
+@Slf4j
+@Component
+public class TokenBlacklist {
+
+    static final String KEY_PREFIX = "blacklist:";
+    static final String INDEX_KEY = "blacklist:index";
+    static final String TOPIC = "tokenBlacklist";
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    /**
+     * 首次重建完成前為 null，此時一律查詢 Redis
+     */
+    private volatile BloomFilter<CharSequence> filter;
+
+    /**
+     * 重建期間收到的撤銷，換上新過濾器後補加，避免在讀取 ZSET 與替換之間遺失
+     */
+    private volatile Set<String> pending;
+
+    public TokenBlacklist(StringRedisTemplate redisTemplate,
+                          CacheInvalidationBus invalidationBus,
+                          @Value("${jwt.blacklist.expected-insertions:100000}") long expectedInsertions,
+                          @Value("${jwt.blacklist.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.redisTemplate = redisTemplate;
+        this.invalidationBus = invalidationBus;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+
+        invalidationBus.subscribe(TOPIC, key -> {
+            if (key instanceof String tokenId) {
+                add(tokenId);
+            }
+        });
+    }
+
+    /**
+     * 撤銷 Token（用戶登出或修改密碼）；已過期的 Token 無需撤銷
+     */
+    public void revoke(JwtPrincipal principal) {
+        long ttl = principal.getExpiresAtMillis() - System.currentTimeMillis();
+        if (ttl <= 0) {
+            return;
+        }
+
+        String tokenId = principal.getTokenId();
+        redisTemplate.opsForValue().set(KEY_PREFIX + tokenId, "1", ttl, TimeUnit.MILLISECONDS);
+        redisTemplate.opsForZSet().add(INDEX_KEY, tokenId, principal.getExpiresAtMillis());
+        add(tokenId);
+        invalidationBus.publish(TOPIC, tokenId);
+    }
+
+    /**
+     * 檢查 Token 是否已撤銷（過濾器未命中時不訪問 Redis）
+     */
+    public boolean isRevoked(JwtPrincipal principal) {
+        BloomFilter<CharSequence> current = filter;
+        if (current != null && !current.mightContain(principal.getTokenId())) {
+            return false;
+        }
+        return Boolean.TRUE.equals(redisTemplate.hasKey(KEY_PREFIX + principal.getTokenId()));
+    }
+
+    /**
+     * 從 ZSET 全量重建過濾器（同時清理已過期的索引），過濾器不支持刪除，重建也釋放已過期 Token 佔用的位
+     */
+    @Scheduled(fixedDelayString = "${jwt.blacklist.snapshot-interval-ms:60000}")
+    public void rebuild() {
+        Set<String> received = ConcurrentHashMap.newKeySet();
+        pending = received;
+        try {
+            long now = System.currentTimeMillis();
+            redisTemplate.opsForZSet().removeRangeByScore(INDEX_KEY, 0, now);
+            Set<String> tokenIds = redisTemplate.opsForZSet().rangeByScore(INDEX_KEY, now, Double.POSITIVE_INFINITY);
+            int size = tokenIds == null ? 0 : tokenIds.size();
+
+            BloomFilter<CharSequence> fresh = BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+                    Math.max(expectedInsertions, size * 2L), falsePositiveRate);
+            if (tokenIds != null) {
+                tokenIds.forEach(fresh::put);
+            }
+            filter = fresh;
+            received.forEach(fresh::put);
+            log.debug("Token 黑名單過濾器已重建，撤銷數：{}", size);
+        } catch (Exception e) {
+            log.warn("重建 Token 黑名單過濾器失敗，繼續使用舊過濾器", e);
+        } finally {
+            pending = null;
+        }
+    }
+
+    private void add(String tokenId) {
+        Set<String> received = pending;
+        if (received != null) {
+            received.add(tokenId);
+        }
+        BloomFilter<CharSequence> current = filter;
+        if (current != null) {
+            current.put(tokenId);
+        }
+    }
+}
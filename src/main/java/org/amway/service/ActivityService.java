@@ -1,17 +1,25 @@
 package org.amway.service;
 
+import org.amway.cache.ActivityCacheInvalidator;
+import org.amway.cache.ActivityTimeline;
 import org.amway.dto.response.ActivityResponse;
 import org.amway.dto.response.PrizeResponse;
 import org.amway.entity.LotteryActivity;
 import org.amway.entity.Prize;
+import org.amway.exception.BusinessException;
+import org.amway.exception.enums.ErrorCode;
 import org.amway.repository.LotteryActivityRepository;
 import org.amway.repository.PrizeRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -20,37 +28,69 @@ public class ActivityService {
 
     private final LotteryActivityRepository activityRepository;
     private final PrizeRepository prizeRepository;
+    private final ActivityTimeline activityTimeline;
+    private final ActivityCacheInvalidator activityCacheInvalidator;
 
     /**
-     * 獲取所有進行中的活動
+     * 獲取所有進行中的活動（二級快取，活動或獎品變動、活動開始或結束時失效）
+     * 成員由活動時間軸的進行中快照決定，與抽獎路徑一致
      */
-    @Cacheable(value = "activeActivities", key = "'all'")
+    @Cacheable(value = ActivityCacheInvalidator.ACTIVE_ACTIVITIES, key = "'" + ActivityCacheInvalidator.ACTIVE_ACTIVITIES_KEY + "'", sync = true)
     public List<ActivityResponse> getActiveActivities() {
-        List<LotteryActivity> activities = activityRepository
-                .findActiveActivities(LocalDateTime.now());
+        List<Long> activityIds = activityTimeline.getActiveIds();
+        if (activityIds.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        return activities.stream()
-                .map(this::convertToResponse)
+        Map<Long, LotteryActivity> activities = activityRepository.findAllById(activityIds).stream()
+                .collect(Collectors.toMap(LotteryActivity::getId, Function.identity()));
+
+        // 一次查詢所有活動的獎品，按活動分組（取 activity.id 不會初始化代理）
+        Map<Long, List<Prize>> prizesByActivity = prizeRepository
+                .findByActivityIdIn(activityIds)
+                .stream()
+                .collect(Collectors.groupingBy(prize -> prize.getActivity().getId()));
+
+        return activityIds.stream()
+                .map(activities::get)
+                .filter(Objects::nonNull)
+                .map(activity -> convertToResponse(activity,
+                        prizesByActivity.getOrDefault(activity.getId(), List.of())))
                 .collect(Collectors.toList());
     }
 
     /**
      * 獲取活動詳情
      */
-    @Cacheable(value = "activity", key = "#activityId")
+    @Cacheable(value = ActivityCacheInvalidator.ACTIVITY, key = "#activityId", sync = true)
     public ActivityResponse getActivityDetail(Long activityId) {
         LotteryActivity activity = activityRepository.findById(activityId)
                 .orElseThrow(() -> new IllegalArgumentException("活動不存在"));
 
-        return convertToResponse(activity);
+        return convertToResponse(activity, prizeRepository.findByActivityId(activityId));
     }
 
     /**
-     * 轉換為響應對象
+     * 更新活動狀態（管理員上線 / 停用 / 結束活動），提交後刷新各節點的活動時間軸與快取
      */
-    private ActivityResponse convertToResponse(LotteryActivity activity) {
-        List<Prize> prizes = prizeRepository.findByActivityId(activity.getId());
+    @Transactional(rollbackFor = Exception.class)
+    public ActivityResponse updateStatus(Long activityId, LotteryActivity.ActivityStatus status) {
+        LotteryActivity activity = activityRepository.findById(activityId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.RESOURCE_NOT_FOUND, "活動不存在"));
+
+        activity.setStatus(status);
+        activityRepository.save(activity);
+        activityCacheInvalidator.activityChanged(activityId);
 
+        return convertToResponse(activity, prizeRepository.findByActivityId(activityId));
+    }
+
+    /**
+     * 轉換為響應對象（剩餘庫存變化頻繁，由 PrizeStockView 單獨提供；
+     * remainingStock 僅為相容舊客戶端保留的快照，隨活動快取一起過期，不保證即時）
+     */
+    @SuppressWarnings("deprecation")
+    private ActivityResponse convertToResponse(LotteryActivity activity, List<Prize> prizes) {
         List<PrizeResponse> prizeResponses = prizes.stream()
                 .map(prize -> PrizeResponse.builder()
                         .id(prize.getId())
@@ -58,6 +98,7 @@ public class ActivityService {
                         .description(prize.getDescription())
                         .totalStock(prize.getTotalStock())
                         .remainingStock(prize.getRemainingStock())
+                        .unlimitedStock(prize.getUnlimitedStock())
                         .probability(prize.getProbability())
                         .prizeType(prize.getPrizeType().name())
                         .imageUrl(prize.getImageUrl())
@@ -1,5 +1,11 @@
 package org.amway.service;
 
+import org.amway.cache.ActivityDescriptor;
+import org.amway.cache.ActivityDescriptorCache;
+import org.amway.cache.ActivityTimeline;
+import org.amway.cache.PrizeCatalog;
+import org.amway.cache.PrizeCatalogCache;
+import org.amway.cache.PrizeSnapshot;
 import org.amway.dto.request.DrawRequest;
 import org.amway.dto.response.DrawResponse;
 import org.amway.dto.response.DrawResult;
@@ -7,33 +13,46 @@ import org.amway.entity.*;
 import org.amway.exception.BusinessException;
 import org.amway.exception.enums.ErrorCode;
 import org.amway.repository.*;
+import org.amway.service.quota.DrawAdmission;
+import org.amway.service.quota.DrawQuotaService;
+import org.amway.service.record.DrawRecordWriter;
+import org.amway.service.statistics.DrawCompletedEvent;
+import org.amway.service.stock.PrizeStockEngine;
+import org.amway.util.IdGenerator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataAccessException;
 import org.springframework.data.redis.RedisConnectionFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.Map;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class LotteryService {
 
+    private static final String NO_PRIZE_NAME = "銘謝惠顧";
+
     private final LotteryActivityRepository activityRepository;
     private final PrizeRepository prizeRepository;
     private final DrawRecordRepository drawRecordRepository;
-    private final UserDrawStatisticsRepository statisticsRepository;
     private final UserRepository userRepository;
-    private final RedissonClient redissonClient;
-    private final UserDailyDrawStatisticsRepository dailyStatisticsRepository;
+    private final PrizeCatalogCache prizeCatalogCache;
+    private final ActivityDescriptorCache activityDescriptorCache;
+    private final ActivityTimeline activityTimeline;
+    private final PrizeStockEngine prizeStockEngine;
+    private final IdGenerator drawRecordIdGenerator;
+    private final DrawRecordWriter drawRecordWriter;
+    private final DrawQuotaService drawQuotaService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 執行抽獎（入口方法，包含異常處理）
@@ -65,266 +84,140 @@ public class LotteryService {
      * 執行抽獎的核心邏輯
      */
     private DrawResponse executeDrawInternal(Long userId, DrawRequest request) {
-        // 1. 驗證活動
-        LotteryActivity activity = validateActivity(request.getActivityId());
-
-        // 2. 獲取用戶
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new BusinessException(ErrorCode.RESOURCE_NOT_FOUND, "用戶不存在"));
-
-        // 3. 使用分佈式鎖防止併發
-        String lockKey = String.format("lottery:draw:%d:%d", userId, request.getActivityId());
-        RLock lock = redissonClient.getLock(lockKey);
-
-        try {
-            // 嘗試獲取鎖，最多等待 10 秒，鎖自動釋放時間 30 秒
-            boolean isLocked = lock.tryLock(10, 30, TimeUnit.SECONDS);
-            if (!isLocked) {
-                throw new BusinessException(ErrorCode.SERVICE_UNAVAILABLE, "系統繁忙，請稍後再試");
-            }
-
-            // 4. 檢查剩餘抽獎次數
-            int remainingDraws = checkAndGetRemainingDraws(user, activity);
-
-            if (remainingDraws < request.getDrawCount()) {
-                throw new BusinessException(
-                        ErrorCode.INSUFFICIENT_DRAWS,
-                        String.format("剩餘抽獎次數不足，剩餘：%d次，請求：%d次", remainingDraws, request.getDrawCount())
-                );
-            }
-
-            // 5. 執行多次抽獎
-            List<DrawResult> results = new ArrayList<>();
-
-            // 根據限制類型更新統計
-            if ("DAILY".equals(activity.getLimitType())) {
-                // 每日限制模式
-                LocalDate today = LocalDate.now();
-                UserDailyDrawStatistics dailyStats = getOrCreateDailyStatistics(user, activity, today);
-
-                for (int i = 0; i < request.getDrawCount(); i++) {
-                    DrawResult result = executeSingleDraw(user, activity);
-                    results.add(result);
-
-                    // 更新每日統計
-                    dailyStats.incrementDailyDrawCount();
-                    if (result.getIsWinning()) {
-                        dailyStats.incrementDailyWinningCount();
-                    }
-                }
-
-                dailyStatisticsRepository.save(dailyStats);
-
-                // 6. 計算剩餘次數
-                int newRemainingDraws = Math.max(0, activity.getMaxDrawsPerUser() - dailyStats.getDailyDraws());
+        // 1. 驗證活動（本地快取的活動描述，命中時不查詢數據庫）
+        ActivityDescriptor activity = validateActivity(request.getActivityId());
+
+        // 2. 用戶只作為抽獎記錄的外鍵，不需要載入（用戶ID來自已驗證的 JWT）
+
+        // 3. 原子性佔用抽獎次數（Redis Lua 腳本檢查並累加，超出上限立即拒絕，不需要分佈式鎖）
+        DrawAdmission admission = drawQuotaService.admit(activity, userId, request.getDrawCount());
+        if (!admission.isAdmitted()) {
+            throw new BusinessException(
+                    ErrorCode.INSUFFICIENT_DRAWS,
+                    String.format("剩餘抽獎次數不足，剩餘：%d次，請求：%d次", admission.getRemaining(), request.getDrawCount())
+            );
+        }
 
-                return DrawResponse.builder()
-                        .results(results)
-                        .drawCount(request.getDrawCount())
-                        .remainingDraws(newRemainingDraws)
-                        .build();
+        // 4. 批次執行抽獎（先抽出全部結果，再按獎品一次預扣庫存、一次批量寫入記錄）
+        List<DrawResult> results = executeBatchDraw(userId, activity, request.getDrawCount());
 
-            } else {
-                // 總次數限制模式（TOTAL）
-                UserDrawStatistics statistics = getOrCreateStatistics(user, activity);
-
-                for (int i = 0; i < request.getDrawCount(); i++) {
-                    DrawResult result = executeSingleDraw(user, activity);
-                    results.add(result);
-
-                    // 更新總統計
-                    statistics.incrementDrawCount();
-                    if (result.getIsWinning()) {
-                        statistics.incrementWinningCount();
-                    }
-                }
-
-                statisticsRepository.save(statistics);
-
-                // 6. 計算剩餘次數
-                int newRemainingDraws = Math.max(0, activity.getMaxDrawsPerUser() - statistics.getTotalDraws());
-
-                return DrawResponse.builder()
-                        .results(results)
-                        .drawCount(request.getDrawCount())
-                        .remainingDraws(newRemainingDraws)
-                        .build();
-            }
+        // 5. 異步更新抽獎統計（事務提交後執行，不阻塞響應）
+        int wins = (int) results.stream().filter(DrawResult::getIsWinning).count();
+        eventPublisher.publishEvent(new DrawCompletedEvent(
+                userId, activity.getId(), results.get(0).getDrawTime(), results.size(), wins));
 
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new BusinessException(ErrorCode.INTERNAL_ERROR, "抽獎被中斷");
-        } finally {
-            if (lock.isHeldByCurrentThread()) {
-                lock.unlock();
-            }
-        }
+        // 6. 剩餘次數以配額計數器為準
+        return DrawResponse.builder()
+                .results(results)
+                .drawCount(request.getDrawCount())
+                .remainingDraws(admission.getRemaining())
+                .build();
     }
 
     /**
-     * 執行單次抽獎
+     * 批次執行抽獎
+     * 1. 根據機率抽出全部結果
+     * 2. 按獎品彙總中獎數，每個獎品只預扣一次庫存，不足的部分依序降級為銘謝惠顧
+     * 3. 一次批量寫入所有抽獎記錄
      */
-    private DrawResult executeSingleDraw(User user, LotteryActivity activity) {
-        // 1. 獲取所有可用獎品
-        List<Prize> prizes = prizeRepository.findByActivityId(activity.getId());
-
-        // 2. 根據機率選擇獎品
-        Prize selectedPrize = selectPrizeByProbability(prizes);
-
-        // 3. 創建抽獎記錄
-        DrawRecord record = new DrawRecord();
-        record.setActivity(activity);
-        record.setUser(user);
-        record.setDrawTime(LocalDateTime.now());
-        record.setStatus(DrawRecord.DrawStatus.COMPLETED);
+    private List<DrawResult> executeBatchDraw(Long userId, ActivityDescriptor activity, int drawCount) {
+        // 1. 從本地快取獲取獎品目錄並抽出所有結果
+        PrizeCatalog catalog = prizeCatalogCache.get(activity.getId());
+
+        PrizeSnapshot[] outcomes = new PrizeSnapshot[drawCount];
+        Map<PrizeSnapshot, Integer> demand = new LinkedHashMap<>();
+        for (int i = 0; i < drawCount; i++) {
+            PrizeSnapshot prize = catalog.sample();
+            outcomes[i] = prize;
+            // 銘謝惠顧與不限庫存獎品不涉及庫存
+            if (prize != null && prize.requiresStock()) {
+                demand.merge(prize, 1, Integer::sum);
+            }
+        }
 
-        boolean isWinning = false;
-        String prizeName = "銘謝惠顧";
+        // 2. 按獎品一次預扣庫存
+        Map<PrizeSnapshot, Integer> granted = new HashMap<>();
+        demand.forEach((prize, quantity) -> {
+            int reserved = prizeStockEngine.reserve(prize, quantity);
+            if (reserved < quantity) {
+                log.warn("獎品庫存不足，獎品ID：{}，請求：{}，扣減：{}", prize.getId(), quantity, reserved);
+            }
+            granted.put(prize, reserved);
+        });
 
-        // 4. 處理中獎情況
-        if (selectedPrize != null && selectedPrize.getPrizeType() != Prize.PrizeType.NO_PRIZE) {
-            // 使用悲觀鎖獲取獎品，防止超抽
-            Prize lockedPrize = prizeRepository.findByIdWithLock(selectedPrize.getId())
-                    .orElseThrow(() -> new BusinessException(ErrorCode.RESOURCE_NOT_FOUND, "獎品不存在"));
+        // 3. 分配結果並建立記錄
+        LocalDateTime drawTime = LocalDateTime.now();
+        User user = userRepository.getReferenceById(userId);
+        LotteryActivity activityReference = activityRepository.getReferenceById(activity.getId());
+        List<DrawRecord> records = new ArrayList<>(drawCount);
+        boolean[] winning = new boolean[drawCount];
 
-            if (lockedPrize.hasStock()) {
-                lockedPrize.decreaseStock(1);
-                prizeRepository.save(lockedPrize);
+        for (int i = 0; i < drawCount; i++) {
+            PrizeSnapshot prize = outcomes[i];
+            DrawRecord record = newDrawRecord(user, activityReference, drawTime);
 
-                record.setPrize(lockedPrize);
+            if (prize != null && !prize.isNoPrize()
+                    && (!prize.requiresStock() || granted.merge(prize, -1, Integer::sum) >= 0)) {
+                record.setPrize(prizeRepository.getReferenceById(prize.getId()));
                 record.setIsWinning(true);
-                record.setPrizeName(lockedPrize.getName());
-
-                isWinning = true;
-                prizeName = lockedPrize.getName();
+                record.setPrizeName(prize.getName());
+                winning[i] = true;
             } else {
-                // 庫存不足，降級為銘謝惠顧
-                log.warn("獎品庫存不足，獎品ID：{}", selectedPrize.getId());
+                // 銘謝惠顧或庫存不足降級
                 record.setIsWinning(false);
-                record.setPrizeName("銘謝惠顧");
+                record.setPrizeName(NO_PRIZE_NAME);
             }
-        } else {
-            record.setIsWinning(false);
-            record.setPrizeName("銘謝惠顧");
+            records.add(record);
         }
 
-        drawRecordRepository.save(record);
+        // 4. 批量寫入抽獎記錄（同步落庫或寫入本地日誌）
+        drawRecordWriter.write(records);
 
         // 5. 構建返回結果
+        List<DrawResult> results = new ArrayList<>(drawCount);
+        for (int i = 0; i < drawCount; i++) {
+            results.add(toDrawResult(records.get(i), outcomes[i], winning[i]));
+        }
+        return results;
+    }
+
+    private DrawResult toDrawResult(DrawRecord record, PrizeSnapshot prize, boolean isWinning) {
         return DrawResult.builder()
                 .recordId(record.getId())
                 .isWinning(isWinning)
-                .prizeId(selectedPrize != null ? selectedPrize.getId() : null)
-                .prizeName(prizeName)
-                .prizeType(selectedPrize != null ? selectedPrize.getPrizeType().name() : "NO_PRIZE")
-                .prizeDescription(selectedPrize != null ? selectedPrize.getDescription() : null)
+                .prizeId(prize != null ? prize.getId() : null)
+                .prizeName(isWinning ? prize.getName() : NO_PRIZE_NAME)
+                .prizeType(prize != null ? prize.getPrizeType().name() : "NO_PRIZE")
+                .prizeDescription(prize != null ? prize.getDescription() : null)
                 .drawTime(record.getDrawTime())
                 .build();
     }
 
-    /**
-     * 根據機率選擇獎品（輪盤賭算法）
-     */
-    private Prize selectPrizeByProbability(List<Prize> prizes) {
-        if (prizes == null || prizes.isEmpty()) {
-            return null;
-        }
-
-        // 生成 0-1 之間的隨機數
-        double random = Math.random();
-        double cumulativeProbability = 0.0;
-
-        for (Prize prize : prizes) {
-            cumulativeProbability += prize.getProbability().doubleValue();
-            if (random <= cumulativeProbability) {
-                return prize;
-            }
-        }
-
-        // 如果沒有選中任何獎品，返回最後一個（通常是銘謝惠顧）
-        return prizes.get(prizes.size() - 1);
-    }
-
-    /**
-     * 檢查並獲取剩餘抽獎次數
-     */
-    private int checkAndGetRemainingDraws(User user, LotteryActivity activity) {
-        String limitType = activity.getLimitType(); // TOTAL, DAILY, WEEKLY
-
-        if ("DAILY".equals(limitType)) {
-            // 每日限制
-            LocalDate today = LocalDate.now();
-            UserDailyDrawStatistics dailyStats = dailyStatisticsRepository
-                    .findByUserIdAndActivityIdAndDrawDate(user.getId(), activity.getId(), today)
-                    .orElse(null);
-
-            if (dailyStats == null) {
-                return activity.getMaxDrawsPerUser();
-            }
-
-            return Math.max(0, activity.getMaxDrawsPerUser() - dailyStats.getDailyDraws());
-
-        } else {
-            // 總次數限制（TOTAL）
-            UserDrawStatistics statistics = statisticsRepository
-                    .findByUserIdAndActivityId(user.getId(), activity.getId())
-                    .orElse(null);
-
-            if (statistics == null) {
-                return activity.getMaxDrawsPerUser();
-            }
-
-            return Math.max(0, activity.getMaxDrawsPerUser() - statistics.getTotalDraws());
-        }
+    private DrawRecord newDrawRecord(User user, LotteryActivity activity, LocalDateTime drawTime) {
+        DrawRecord record = new DrawRecord();
+        record.setId(drawRecordIdGenerator.nextId());
+        record.setActivity(activity);
+        record.setUser(user);
+        record.setDrawTime(drawTime);
+        record.setStatus(DrawRecord.DrawStatus.COMPLETED);
+        return record;
     }
 
     /**
-     * 驗證活動是否有效
+     * 驗證活動是否有效（讀取活動時間軸的進行中快照）
      */
-    private LotteryActivity validateActivity(Long activityId) {
-        LotteryActivity activity = activityRepository.findById(activityId)
-                .orElseThrow(() -> new BusinessException(ErrorCode.RESOURCE_NOT_FOUND, "活動不存在"));
+    private ActivityDescriptor validateActivity(Long activityId) {
+        ActivityDescriptor activity = activityTimeline.getActive(activityId);
 
-        if (!activity.isActive()) {
+        if (activity == null) {
+            // 區分活動不存在（RESOURCE_NOT_FOUND）與未開始 / 已結束
+            activityDescriptorCache.get(activityId);
             throw new BusinessException(ErrorCode.ACTIVITY_NOT_ACTIVE, "活動未開始或已結束");
         }
 
         return activity;
     }
 
-    /**
-     * 獲取或創建用戶抽獎統計（總次數模式）
-     */
-    private UserDrawStatistics getOrCreateStatistics(User user, LotteryActivity activity) {
-        return statisticsRepository.findByUserIdAndActivityIdWithLock(
-                user.getId(), activity.getId()
-        ).orElseGet(() -> {
-            UserDrawStatistics newStats = new UserDrawStatistics();
-            newStats.setUser(user);
-            newStats.setActivity(activity);
-            newStats.setTotalDraws(0);
-            newStats.setWinningDraws(0);
-            return statisticsRepository.save(newStats);
-        });
-    }
-
-    /**
-     * 獲取或創建用戶每日抽獎統計（每日限制模式）
-     */
-    private UserDailyDrawStatistics getOrCreateDailyStatistics(User user, LotteryActivity activity, LocalDate date) {
-        return dailyStatisticsRepository
-                .findByUserIdAndActivityIdAndDrawDate(user.getId(), activity.getId(), date)
-                .orElseGet(() -> {
-                    UserDailyDrawStatistics newStats = new UserDailyDrawStatistics();
-                    newStats.setUserId(user.getId());
-                    newStats.setActivityId(activity.getId());
-                    newStats.setDrawDate(date);
-                    newStats.setDailyDraws(0);
-                    newStats.setDailyWinningDraws(0);
-                    return dailyStatisticsRepository.save(newStats);
-                });
-    }
-
     /**
      * 查詢用戶抽獎歷史
      */
@@ -339,12 +232,8 @@ public class LotteryService {
      * 獲取用戶剩餘抽獎次數
      */
     public int getRemainingDraws(Long userId, Long activityId) {
-        LotteryActivity activity = activityRepository.findById(activityId)
-                .orElseThrow(() -> new BusinessException(ErrorCode.RESOURCE_NOT_FOUND, "活動不存在"));
-
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new BusinessException(ErrorCode.RESOURCE_NOT_FOUND, "用戶不存在"));
+        ActivityDescriptor activity = activityDescriptorCache.get(activityId);
 
-        return checkAndGetRemainingDraws(user, activity);
+        return drawQuotaService.getRemaining(activity, userId);
     }
 }
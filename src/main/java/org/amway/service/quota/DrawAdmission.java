@@ -0,0 +1,31 @@
+package org.amway.service.quota;
+
+import lombok.Value;
+
+/**
+ * 抽獎准入結果
+ */
+@Value
+public class DrawAdmission {
+
+    boolean admitted;
+
+    /**
+     * 本週期已使用次數（准入時已包含本次）
+     */
+    int used;
+
+    int limit;
+
+    public static DrawAdmission admitted(int used, int limit) {
+        return new DrawAdmission(true, used, limit);
+    }
+
+    public static DrawAdmission rejected(int used, int limit) {
+        return new DrawAdmission(false, used, limit);
+    }
+
+    public int getRemaining() {
+        return Math.max(0, limit - used);
+    }
+}
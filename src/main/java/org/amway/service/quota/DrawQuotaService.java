@@ -0,0 +1,168 @@
+package org.amway.service.quota;
+
+import lombok.extern.slf4j.Slf4j;
+import org.amway.cache.ActivityDescriptor;
+import org.amway.repository.DrawRecordRepository;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 抽獎次數配額
+ * 以 Redis 計數器記錄用戶在當前週期（TOTAL/DAILY/WEEKLY）的已抽次數，按週期分桶並在週期結束時過期
+ * 准入通過 Lua 腳本原子性「檢查並累加」，超出上限直接拒絕；查詢剩餘次數只需一次 GET
+ * 計數器缺失時以 draw_records 在該週期內的記錄數恢復
+ * 注意：開啟 lottery.journal.enabled 時 draw_records 落後於日誌（最多一個回寫間隔，數據庫不可用時更久，且包含其他節點的日誌），
+ * 這段時間內計數器被淘汰或 Redis 重啟會以偏低的次數恢復，用戶可能多抽；因此計數器所在的 Redis 應關閉淘汰並開啟持久化
+ */
+@Slf4j
+@Service
+public class DrawQuotaService {
+
+    private static final String QUOTA_KEY_PREFIX = "lottery:quota:";
+
+    /**
+     * 返回 {-1, 0}：計數器未載入；{0, 已用次數}：超出上限；{1, 累加後次數}：准入
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> ADMIT_SCRIPT = new DefaultRedisScript<>(
+            "local used = redis.call('GET', KEYS[1]) " +
+            "if not used then return {-1, 0} end " +
+            "used = tonumber(used) " +
+            "local count = tonumber(ARGV[1]) " +
+            "if used + count > tonumber(ARGV[2]) then return {0, used} end " +
+            "return {1, redis.call('INCRBY', KEYS[1], count)}",
+            List.class
+    );
+
+    /**
+     * 返回歸還後的次數；計數器已過期或被淘汰時不做任何事並返回 -1，不會建立沒有過期時間的負數計數器
+     * ARGV：歸還次數、計數器不帶過期時間時補設的過期時間（毫秒）
+     */
+    private static final RedisScript<Long> REFUND_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+            "local used = redis.call('DECRBY', KEYS[1], ARGV[1]) " +
+            "if used < 0 then used = redis.call('INCRBY', KEYS[1], -used) end " +
+            "if redis.call('PTTL', KEYS[1]) < 0 then redis.call('PEXPIRE', KEYS[1], ARGV[2]) end " +
+            "return used",
+            Long.class
+    );
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final DrawRecordRepository drawRecordRepository;
+
+    public DrawQuotaService(StringRedisTemplate stringRedisTemplate,
+                            DrawRecordRepository drawRecordRepository) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.drawRecordRepository = drawRecordRepository;
+    }
+
+    /**
+     * 嘗試佔用 count 次抽獎機會；准入後外層事務回滾會自動歸還
+     */
+    public DrawAdmission admit(ActivityDescriptor activity, Long userId, int count) {
+        LocalDateTime now = LocalDateTime.now();
+        QuotaWindow window = QuotaWindow.of(activity, now);
+        String key = quotaKey(activity, userId, window);
+        int limit = activity.getMaxDrawsPerUser();
+
+        List<?> result = execute(key, count, limit);
+        if (toInt(result.get(0)) < 0) {
+            // 計數器尚未載入（首次抽獎、週期切換或 Redis 重啟），從數據庫恢復後重試
+            seed(key, activity, userId, window, now);
+            result = execute(key, count, limit);
+        }
+
+        int used = toInt(result.get(1));
+        if (toInt(result.get(0)) != 1) {
+            return DrawAdmission.rejected(used, limit);
+        }
+
+        refundOnRollback(key, count, ttl(window, now));
+        return DrawAdmission.admitted(used, limit);
+    }
+
+    /**
+     * 查詢剩餘次數（計數器存在時只需一次 GET）
+     */
+    public int getRemaining(ActivityDescriptor activity, Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        QuotaWindow window = QuotaWindow.of(activity, now);
+        String key = quotaKey(activity, userId, window);
+
+        String value = stringRedisTemplate.opsForValue().get(key);
+        int used = value != null ? Integer.parseInt(value) : seed(key, activity, userId, window, now);
+        return Math.max(0, activity.getMaxDrawsPerUser() - used);
+    }
+
+    private List<?> execute(String key, int count, int limit) {
+        List<?> result = stringRedisTemplate.execute(ADMIT_SCRIPT, Collections.singletonList(key),
+                String.valueOf(count), String.valueOf(limit));
+        if (result == null || result.size() < 2) {
+            throw new IllegalStateException("抽獎准入腳本返回異常：" + result);
+        }
+        return result;
+    }
+
+    /**
+     * 以週期內的抽獎記錄數初始化計數器，返回已用次數
+     */
+    private int seed(String key, ActivityDescriptor activity, Long userId, QuotaWindow window, LocalDateTime now) {
+        long used = window.isTotal()
+                ? drawRecordRepository.countByUserIdAndActivityId(userId, activity.getId())
+                : drawRecordRepository.countDraws(userId, activity.getId(), window.getStart(), window.getEnd());
+
+        Boolean seeded = stringRedisTemplate.opsForValue()
+                .setIfAbsent(key, String.valueOf(used), ttl(window, now));
+        if (Boolean.TRUE.equals(seeded)) {
+            log.debug("已從數據庫載入抽獎次數，key：{}，已用：{}", key, used);
+            return (int) used;
+        }
+
+        // 其他請求已經載入
+        String current = stringRedisTemplate.opsForValue().get(key);
+        return current != null ? Integer.parseInt(current) : (int) used;
+    }
+
+    /**
+     * 外層事務回滾時歸還已佔用的次數（只在計數器仍存在時歸還，並保持其過期時間）
+     */
+    private void refundOnRollback(String key, int count, Duration ttl) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    stringRedisTemplate.execute(REFUND_SCRIPT, Collections.singletonList(key),
+                            String.valueOf(count), String.valueOf(ttl.toMillis()));
+                }
+            }
+        });
+    }
+
+    /**
+     * 計數器存活到週期結束
+     */
+    Duration ttl(QuotaWindow window, LocalDateTime now) {
+        Duration ttl = Duration.between(now, window.getEnd());
+        return ttl.isNegative() || ttl.isZero() ? Duration.ofSeconds(1) : ttl;
+    }
+
+    String quotaKey(ActivityDescriptor activity, Long userId, QuotaWindow window) {
+        return QUOTA_KEY_PREFIX + activity.getId() + ":" + userId + ":" + window.getBucket();
+    }
+
+    private static int toInt(Object value) {
+        return ((Number) value).intValue();
+    }
+}
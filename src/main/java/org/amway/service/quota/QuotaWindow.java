@@ -0,0 +1,57 @@
+package org.amway.service.quota;
+
+import lombok.Value;
+import org.amway.cache.ActivityDescriptor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * 抽獎次數限制週期
+ * TOTAL：整個活動期間；DAILY：自然日；WEEKLY：ISO 週（週一零點開始）
+ */
+@Value
+public class QuotaWindow {
+
+    private static final DateTimeFormatter DAY_BUCKET = DateTimeFormatter.BASIC_ISO_DATE;
+
+    /**
+     * 計數器 key 中的週期標識
+     */
+    String bucket;
+
+    /**
+     * 週期起點（含），TOTAL 為 null
+     */
+    LocalDateTime start;
+
+    /**
+     * 週期終點（不含），計數器在此之後過期
+     */
+    LocalDateTime end;
+
+    public static QuotaWindow of(ActivityDescriptor activity, LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        String limitType = activity.getLimitType();
+
+        if ("DAILY".equals(limitType)) {
+            return new QuotaWindow(today.format(DAY_BUCKET), today.atStartOfDay(), today.plusDays(1).atStartOfDay());
+        }
+        if ("WEEKLY".equals(limitType)) {
+            LocalDate monday = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            String bucket = String.format("%dW%02d",
+                    monday.get(IsoFields.WEEK_BASED_YEAR), monday.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            return new QuotaWindow(bucket, monday.atStartOfDay(), monday.plusWeeks(1).atStartOfDay());
+        }
+        // TOTAL：活動結束後再保留一天，便於結束前後查詢
+        return new QuotaWindow("total", null, activity.getEndTime().plusDays(1));
+    }
+
+    public boolean isTotal() {
+        return start == null;
+    }
+}
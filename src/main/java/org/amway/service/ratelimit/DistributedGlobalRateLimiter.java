@@ -0,0 +1,193 @@
+package org.amway.service.ratelimit;
+
+import com.google.common.util.concurrent.RateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分佈式全局限流：整個集群共享 Redis 中的一個令牌桶（速率與容量均為 global-qps），global-qps 即集群總上限
+ * 節點不為每個請求訪問 Redis，而是以 Lua 腳本一次租借一批令牌，在本地扣減，用完再租
+ * 每批大小按本節點觀測到的請求速率調整為約 lease-ms 內的用量（不超過集群在 lease-ms 內的總配額），每個節點每秒只訪問 Redis 數次
+ * 租到的令牌超過 2 × lease-ms 未用完即作廢，避免需求回落後再集中使用而突破上限；桶已空時在短暫退避內直接拒絕
+ * 同時只有一個執行緒訪問 Redis：租借進行中時其他執行緒最多等待 lease-ms，之後使用租到的令牌；等待超時（Redis 阻塞）時改用本地限流
+ * Redis 不可用時在 redis-retry-ms 內降級為本地 Guava 限流（每個節點 global-qps），期間不再訪問 Redis
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "rate-limit.mode", havingValue = "distributed")
+public class DistributedGlobalRateLimiter implements GlobalRateLimiter {
+
+    static final String BUCKET_KEY = "rate-limit:global";
+
+    /**
+     * ARGV：速率（每秒）、容量、請求數量；按 Redis 伺服器時間補充令牌，返回實際租到的數量（可能為 0）
+     */
+    private static final RedisScript<Long> LEASE_SCRIPT = new DefaultRedisScript<>(
+            "local rate = tonumber(ARGV[1]) " +
+            "local capacity = tonumber(ARGV[2]) " +
+            "local requested = tonumber(ARGV[3]) " +
+            "local time = redis.call('TIME') " +
+            "local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000) " +
+            "local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts') " +
+            "local tokens = tonumber(state[1]) " +
+            "local ts = tonumber(state[2]) " +
+            "if not tokens then tokens = capacity ts = now end " +
+            "tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate / 1000) " +
+            "local granted = math.min(requested, math.floor(tokens)) " +
+            "redis.call('HSET', KEYS[1], 'tokens', tostring(tokens - granted), 'ts', now) " +
+            "redis.call('PEXPIRE', KEYS[1], math.ceil(capacity / rate * 1000) + 1000) " +
+            "return granted",
+            Long.class
+    );
+
+    /**
+     * 觀測速率的平滑係數（每次租借時更新）
+     */
+    private static final double RATE_SMOOTHING = 0.5;
+
+    private final StringRedisTemplate redisTemplate;
+    private final double globalQps;
+    private final long leaseNanos;
+    private final long maxLease;
+    private final long redisRetryNanos;
+    private final RateLimiter fallback;
+    private final ReentrantLock leaseLock = new ReentrantLock();
+
+    private final AtomicLong tokens = new AtomicLong();
+    private final LongAdder demand = new LongAdder();
+    private volatile long leaseExpiresAt;
+    private volatile long retryAt;
+    private volatile long fallbackUntil;
+
+    /**
+     * 以下只在持有 leaseLock 時讀寫
+     */
+    private long lastLeaseAt;
+    private double observedQps;
+
+    public DistributedGlobalRateLimiter(StringRedisTemplate redisTemplate,
+                                        @Value("${rate-limit.global-qps:1000}") double globalQps,
+                                        @Value("${rate-limit.lease-ms:100}") long leaseMillis,
+                                        @Value("${rate-limit.redis-retry-ms:1000}") long redisRetryMillis) {
+        this.redisTemplate = redisTemplate;
+        this.globalQps = globalQps;
+        this.leaseNanos = TimeUnit.MILLISECONDS.toNanos(leaseMillis);
+        this.maxLease = Math.max(1, (long) (globalQps * leaseMillis / 1000));
+        this.redisRetryNanos = TimeUnit.MILLISECONDS.toNanos(redisRetryMillis);
+        this.fallback = RateLimiter.create(globalQps);
+        long now = System.nanoTime();
+        this.leaseExpiresAt = now;
+        this.retryAt = now;
+        this.fallbackUntil = now;
+        this.lastLeaseAt = now;
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        demand.increment();
+        long now = System.nanoTime();
+        if (now - fallbackUntil < 0) {
+            return fallback.tryAcquire();
+        }
+        if (now - leaseExpiresAt < 0 && takeLocal()) {
+            return true;
+        }
+        if (now - retryAt < 0) {
+            return false;
+        }
+        if (!leaseLock.tryLock() && !awaitLease()) {
+            // 租借超過 lease-ms 仍未返回（Redis 阻塞）時改用本地限流
+            return fallback.tryAcquire();
+        }
+        try {
+            return lease(System.nanoTime());
+        } finally {
+            leaseLock.unlock();
+        }
+    }
+
+    /**
+     * 其他執行緒正在租借：正常情況下一次往返即返回，等待後直接使用租到的令牌，不因租借進行中而拒絕
+     *
+     * @return 是否在 lease-ms 內取得 leaseLock
+     */
+    private boolean awaitLease() {
+        try {
+            return leaseLock.tryLock(leaseNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean takeLocal() {
+        long available = tokens.get();
+        while (available > 0) {
+            if (tokens.compareAndSet(available, available - 1)) {
+                return true;
+            }
+            available = tokens.get();
+        }
+        return false;
+    }
+
+    /**
+     * 本地令牌用完時租借下一批（持有 leaseLock 時調用）
+     */
+    private boolean lease(long now) {
+        if (now - leaseExpiresAt < 0 && takeLocal()) {
+            return true;
+        }
+        if (now - retryAt < 0) {
+            return false;
+        }
+
+        long batch = nextBatch(now);
+        long granted;
+        try {
+            Long result = redisTemplate.execute(LEASE_SCRIPT, Collections.singletonList(BUCKET_KEY),
+                    String.valueOf(globalQps), String.valueOf(globalQps), String.valueOf(batch));
+            granted = result == null ? 0 : result;
+        } catch (Exception e) {
+            // 在 redis-retry-ms 內不再訪問 Redis，請求直接走本地限流
+            log.warn("租借全局限流令牌失敗，{} ms 內降級為本地限流", TimeUnit.NANOSECONDS.toMillis(redisRetryNanos), e);
+            tokens.set(0);
+            fallbackUntil = System.nanoTime() + redisRetryNanos;
+            return fallback.tryAcquire();
+        }
+
+        if (granted <= 0) {
+            // 集群令牌已用完，短暫退避，期間不訪問 Redis
+            tokens.set(0);
+            retryAt = now + leaseNanos / 10;
+            return false;
+        }
+        tokens.set(granted - 1);
+        leaseExpiresAt = now + 2 * leaseNanos;
+        return true;
+    }
+
+    /**
+     * 按上次租借以來的請求速率估算 lease-ms 內的用量
+     */
+    private long nextBatch(long now) {
+        double elapsedSeconds = Math.max(now - lastLeaseAt, leaseNanos / 10) / 1e9;
+        double currentQps = demand.sumThenReset() / elapsedSeconds;
+        observedQps = observedQps == 0 ? currentQps : RATE_SMOOTHING * currentQps + (1 - RATE_SMOOTHING) * observedQps;
+        lastLeaseAt = now;
+
+        long batch = (long) Math.ceil(observedQps * leaseNanos / 1e9);
+        return Math.max(1, Math.min(maxLease, batch));
+    }
+}
@@ -0,0 +1,13 @@
+package org.amway.service.ratelimit;
+
+/**
+ * 全局限流器（@RateLimit 的第一層）
+ * 由 rate-limit.mode 選擇實現：local 為每個節點獨立限流，distributed 為整個集群共享同一個令牌桶
+ */
+public interface GlobalRateLimiter {
+
+    /**
+     * 嘗試獲取一個許可，不等待
+     */
+    boolean tryAcquire();
+}
@@ -0,0 +1,25 @@
+package org.amway.service.ratelimit;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 本地全局限流：每個節點各自以 Guava RateLimiter 限流，集群總上限為 global-qps × 節點數
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.mode", havingValue = "local", matchIfMissing = true)
+public class LocalGlobalRateLimiter implements GlobalRateLimiter {
+
+    private final RateLimiter rateLimiter;
+
+    public LocalGlobalRateLimiter(@Value("${rate-limit.global-qps:1000}") double globalQps) {
+        this.rateLimiter = RateLimiter.create(globalQps);
+    }
+
+    @Override
+    public boolean tryAcquire() {
+        return rateLimiter.tryAcquire();
+    }
+}
@@ -0,0 +1,295 @@
+package org.amway.service.record;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 抽獎記錄本地日誌（每個節點一個目錄）
+ * 由固定大小的記憶體映射段文件組成，只追加；條目格式為 [長度][CRC32][內容]，CRC 不符視為段尾（崩潰時的半寫條目）
+ * append 返回前已 force 到磁盤，多個執行緒併發追加時共用一次 force（組提交）
+ * checkpoint 記錄已落庫的位置，重啟後從該位置開始回放；啟動時總是新開一個段，不續寫舊段
+ */
+@Slf4j
+public class DrawJournal implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    /**
+     * 條目頭：長度 + CRC32
+     */
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+
+    private final Path directory;
+    private final int segmentSize;
+
+    private final Object writeLock = new Object();
+    private final Object forceLock = new Object();
+    private final Object readLock = new Object();
+
+    // writeLock 保護
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private volatile JournalPosition writePosition;
+
+    // forceLock 保護
+    private JournalPosition forcedPosition;
+
+    // readLock 保護：最近讀取的已封存段
+    private long cachedReadSegment = -1;
+    private MappedByteBuffer cachedReadBuffer;
+
+    private volatile JournalPosition checkpoint;
+
+    public DrawJournal(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+
+        List<Long> segments = listSegments();
+        long lastSegment = segments.isEmpty() ? -1 : segments.get(segments.size() - 1);
+
+        this.checkpoint = loadCheckpoint(segments.isEmpty() ? 0 : segments.get(0));
+        this.writeSegment = Math.max(lastSegment, checkpoint.getSegment()) + 1;
+        this.writeBuffer = map(writeSegment, FileChannel.MapMode.READ_WRITE);
+        this.writePosition = new JournalPosition(writeSegment, 0);
+        this.forcedPosition = writePosition;
+    }
+
+    /**
+     * 追加條目，返回時已持久化到磁盤
+     */
+    public void append(List<DrawJournalEntry> entries) {
+        force(write(entries));
+    }
+
+    /**
+     * 追加條目但不等待 force：進程崩潰時條目仍在頁快取中，只有整機崩潰會丟失，由之後的 force 一併落盤
+     * 只用於丟失後可由其他途徑確認的條目（事務結果標記）
+     */
+    public void appendUnforced(List<DrawJournalEntry> entries) {
+        write(entries);
+    }
+
+    private JournalPosition write(List<DrawJournalEntry> entries) {
+        synchronized (writeLock) {
+            for (DrawJournalEntry entry : entries) {
+                byte[] payload = entry.encode();
+                int size = HEADER_BYTES + payload.length;
+                if (size > segmentSize) {
+                    throw new IllegalArgumentException("日誌條目超過段大小：" + size);
+                }
+                if (writeBuffer.position() + size > segmentSize) {
+                    roll();
+                }
+
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                writeBuffer.putInt(payload.length);
+                writeBuffer.putInt((int) crc.getValue());
+                writeBuffer.put(payload);
+            }
+            JournalPosition end = new JournalPosition(writeSegment, writeBuffer.position());
+            writePosition = end;
+            return end;
+        }
+    }
+
+    /**
+     * 從指定位置讀取最多 maxEntries 個條目；讀到寫入位置為止
+     */
+    public JournalBatch read(JournalPosition from, int maxEntries) {
+        synchronized (readLock) {
+            List<DrawJournalEntry> entries = new ArrayList<>();
+            List<JournalPosition> positions = new ArrayList<>();
+            long segment = from.getSegment();
+            int offset = from.getOffset();
+
+            while (entries.size() < maxEntries) {
+                ByteBuffer buffer;
+                int limit;
+                boolean active;
+                synchronized (writeLock) {
+                    active = segment == writeSegment;
+                    buffer = active ? writeBuffer.duplicate() : null;
+                    limit = active ? writePosition.getOffset() : 0;
+                }
+                if (!active) {
+                    buffer = sealedSegment(segment);
+                    if (buffer == null) {
+                        // 段已被清理或從未寫入
+                        segment++;
+                        offset = 0;
+                        continue;
+                    }
+                    limit = buffer.limit();
+                }
+
+                boolean endOfSegment = false;
+                while (entries.size() < maxEntries) {
+                    if (offset + HEADER_BYTES > limit) {
+                        endOfSegment = true;
+                        break;
+                    }
+                    int length = buffer.getInt(offset);
+                    if (length <= 0 || offset + HEADER_BYTES + length > limit) {
+                        endOfSegment = true;
+                        break;
+                    }
+                    byte[] payload = new byte[length];
+                    buffer.get(offset + HEADER_BYTES, payload);
+
+                    CRC32 crc = new CRC32();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != buffer.getInt(offset + Integer.BYTES)) {
+                        log.warn("日誌段 {} 偏移 {} 校驗失敗，視為段尾", segment, offset);
+                        endOfSegment = true;
+                        break;
+                    }
+
+                    entries.add(DrawJournalEntry.decode(payload));
+                    positions.add(new JournalPosition(segment, offset));
+                    offset += HEADER_BYTES + length;
+                }
+
+                if (!endOfSegment || active) {
+                    break;
+                }
+                segment++;
+                offset = 0;
+            }
+
+            return new JournalBatch(entries, positions, new JournalPosition(segment, offset));
+        }
+    }
+
+    /**
+     * 記錄已落庫的位置，並刪除之前的段
+     */
+    public void commit(JournalPosition position) {
+        try {
+            Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                channel.write(ByteBuffer.allocate(Long.BYTES + Integer.BYTES)
+                        .putLong(position.getSegment())
+                        .putInt(position.getOffset())
+                        .flip());
+                channel.force(true);
+            }
+            Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            checkpoint = position;
+
+            for (Long segment : listSegments()) {
+                if (segment < position.getSegment()) {
+                    Files.deleteIfExists(segmentPath(segment));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("寫入日誌檢查點失敗", e);
+        }
+    }
+
+    public JournalPosition getCheckpoint() {
+        return checkpoint;
+    }
+
+    public JournalPosition getWritePosition() {
+        return writePosition;
+    }
+
+    @Override
+    public void close() {
+        synchronized (writeLock) {
+            writeBuffer.force();
+        }
+    }
+
+    /**
+     * 組提交：已被其他執行緒 force 過的位置直接返回
+     */
+    private void force(JournalPosition end) {
+        synchronized (forceLock) {
+            if (forcedPosition.compareTo(end) >= 0) {
+                return;
+            }
+            MappedByteBuffer buffer;
+            JournalPosition target;
+            synchronized (writeLock) {
+                buffer = writeBuffer;
+                target = writePosition;
+            }
+            // 之前的段在切換時已經 force
+            buffer.force();
+            forcedPosition = target;
+        }
+    }
+
+    private void roll() {
+        writeBuffer.force();
+        writeSegment++;
+        writeBuffer = map(writeSegment, FileChannel.MapMode.READ_WRITE);
+        log.info("抽獎日誌切換到新段：{}", writeSegment);
+    }
+
+    private ByteBuffer sealedSegment(long segment) {
+        if (segment != cachedReadSegment) {
+            if (!Files.exists(segmentPath(segment))) {
+                return null;
+            }
+            cachedReadBuffer = map(segment, FileChannel.MapMode.READ_ONLY);
+            cachedReadSegment = segment;
+        }
+        return cachedReadBuffer;
+    }
+
+    private MappedByteBuffer map(long segment, FileChannel.MapMode mode) {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), options)) {
+            long size = mode == FileChannel.MapMode.READ_ONLY ? Math.min(channel.size(), segmentSize) : segmentSize;
+            return channel.map(mode, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("映射日誌段失敗：" + segment, e);
+        }
+    }
+
+    private JournalPosition loadCheckpoint(long firstSegment) throws IOException {
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return new JournalPosition(firstSegment, 0);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        return new JournalPosition(buffer.getLong(), buffer.getInt());
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,130 @@
+package org.amway.service.record;
+
+import lombok.Builder;
+import lombok.Value;
+import org.amway.entity.DrawRecord;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * 抽獎日誌條目
+ * RECORD：一條抽獎記錄，在抽獎事務提交前寫入；COMMIT / ABORT：事務結束後寫入的結果標記
+ * 同一次寫入的條目共用 transactionId（該次請求第一條記錄的 ID），沒有結果標記時由 draw_journal_commits 確認
+ */
+@Value
+@Builder
+public class DrawJournalEntry {
+
+    private static final long NULL_ID = -1L;
+
+    Type type;
+    long transactionId;
+    long recordId;
+    long activityId;
+    long userId;
+    Long prizeId;
+    LocalDateTime drawTime;
+    boolean winning;
+    String prizeName;
+    DrawRecord.DrawStatus status;
+
+    public enum Type {
+        RECORD,
+        COMMIT,
+        ABORT
+    }
+
+    public static DrawJournalEntry of(long transactionId, DrawRecord record) {
+        return DrawJournalEntry.builder()
+                .type(Type.RECORD)
+                .transactionId(transactionId)
+                .recordId(record.getId())
+                .activityId(record.getActivity().getId())
+                .userId(record.getUser().getId())
+                .prizeId(record.getPrize() != null ? record.getPrize().getId() : null)
+                .drawTime(record.getDrawTime())
+                .winning(Boolean.TRUE.equals(record.getIsWinning()))
+                .prizeName(record.getPrizeName())
+                .status(record.getStatus())
+                .build();
+    }
+
+    public static DrawJournalEntry commit(long transactionId) {
+        return marker(Type.COMMIT, transactionId);
+    }
+
+    public static DrawJournalEntry abort(long transactionId) {
+        return marker(Type.ABORT, transactionId);
+    }
+
+    private static DrawJournalEntry marker(Type type, long transactionId) {
+        return DrawJournalEntry.builder()
+                .type(type)
+                .transactionId(transactionId)
+                .build();
+    }
+
+    public boolean isRecord() {
+        return type == Type.RECORD;
+    }
+
+    byte[] encode() {
+        if (!isRecord()) {
+            return ByteBuffer.allocate(1 + Long.BYTES)
+                    .put((byte) type.ordinal())
+                    .putLong(transactionId)
+                    .array();
+        }
+
+        byte[] name = prizeName != null ? prizeName.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Long.BYTES * 6 + Integer.BYTES + 2 + Short.BYTES + name.length);
+        buffer.put((byte) Type.RECORD.ordinal())
+                .putLong(transactionId)
+                .putLong(recordId)
+                .putLong(activityId)
+                .putLong(userId)
+                .putLong(prizeId != null ? prizeId : NULL_ID)
+                .putLong(drawTime.toEpochSecond(ZoneOffset.UTC))
+                .putInt(drawTime.getNano())
+                .put((byte) (winning ? 1 : 0))
+                .put((byte) status.ordinal())
+                .putShort((short) name.length)
+                .put(name);
+        return buffer.array();
+    }
+
+    static DrawJournalEntry decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        Type type = Type.values()[buffer.get()];
+        long transactionId = buffer.getLong();
+        if (type != Type.RECORD) {
+            return marker(type, transactionId);
+        }
+
+        long recordId = buffer.getLong();
+        long activityId = buffer.getLong();
+        long userId = buffer.getLong();
+        long prizeId = buffer.getLong();
+        LocalDateTime drawTime = LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+        boolean winning = buffer.get() == 1;
+        DrawRecord.DrawStatus status = DrawRecord.DrawStatus.values()[buffer.get()];
+        byte[] name = new byte[buffer.getShort()];
+        buffer.get(name);
+
+        return DrawJournalEntry.builder()
+                .type(type)
+                .transactionId(transactionId)
+                .recordId(recordId)
+                .activityId(activityId)
+                .userId(userId)
+                .prizeId(prizeId == NULL_ID ? null : prizeId)
+                .drawTime(drawTime)
+                .winning(winning)
+                .prizeName(name.length > 0 ? new String(name, StandardCharsets.UTF_8) : null)
+                .status(status)
+                .build();
+    }
+}
@@ -0,0 +1,17 @@
+package org.amway.service.record;
+
+import org.amway.entity.DrawRecord;
+
+import java.util.List;
+
+/**
+ * 抽獎記錄寫入器
+ * 由 lottery.journal.enabled 選擇：關閉時同步寫入數據庫；開啟時先寫本地日誌，後台異步落庫
+ */
+public interface DrawRecordWriter {
+
+    /**
+     * 寫入一次抽獎請求產生的全部記錄（記錄 ID 已由應用層生成）
+     */
+    void write(List<DrawRecord> records);
+}
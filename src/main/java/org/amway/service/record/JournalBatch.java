@@ -0,0 +1,16 @@
+package org.amway.service.record;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * 一次從日誌讀出的條目、各條目的起始位置，以及下一次讀取的起始位置
+ */
+@Value
+public class JournalBatch {
+
+    List<DrawJournalEntry> entries;
+    List<JournalPosition> positions;
+    JournalPosition next;
+}
@@ -0,0 +1,249 @@
+package org.amway.service.record;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.amway.entity.DrawRecord;
+import org.amway.util.NodeIdLease;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 日誌寫入器（write-ahead + write-behind）
+ * 抽獎事務內先把記錄追加到本地日誌並 force 到磁盤，同一事務寫入一行 draw_journal_commits，寫日誌失敗時抽獎失敗並回滾；
+ * 事務結束後追加 COMMIT / ABORT 標記，後台定時從日誌讀出已提交的記錄並批量寫入 draw_records
+ * 沒有標記的記錄（提交後、標記落盤前崩潰）在回放時以 draw_journal_commits 是否存在該事務確認結果，
+ * 因此已提交的抽獎不會因崩潰丟失，回滾的抽獎也不會被回放落庫
+ * 記錄 ID 由應用層生成，落庫使用 INSERT IGNORE，重啟回放或重複回寫都是冪等的
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "lottery.journal.enabled", havingValue = "true")
+public class JournalDrawRecordWriter implements DrawRecordWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT IGNORE INTO draw_records " +
+            "(id, activity_id, user_id, prize_id, draw_time, is_winning, prize_name, status, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_COMMIT_SQL = "INSERT INTO draw_journal_commits (id) VALUES (?)";
+
+    private static final String DELETE_COMMIT_SQL = "DELETE FROM draw_journal_commits WHERE id = ?";
+
+    private final DrawJournal journal;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    /**
+     * 已寫入日誌但尚未結束的事務，回寫停在它們之前
+     * 追加記錄前加入、追加結果標記後移除，回寫時不在其中又沒有標記的事務一定已經結束
+     */
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 下一次回寫的起始位置（只在 flush 中讀寫）
+     */
+    private JournalPosition position;
+
+    public JournalDrawRecordWriter(JdbcTemplate jdbcTemplate,
+                                   @Value("${lottery.journal.dir:./data/journal}") String directory,
+                                   NodeIdLease nodeIdLease,
+                                   @Value("${lottery.journal.segment-size-mb:64}") int segmentSizeMb,
+                                   @Value("${lottery.journal.batch-size:1000}") int batchSize) throws IOException {
+        this(new DrawJournal(Path.of(directory, "node-" + journalNodeId(nodeIdLease)), segmentSizeMb * 1024 * 1024),
+                jdbcTemplate, batchSize);
+    }
+
+    /**
+     * 日誌目錄按節點劃分，重啟後必須回放同一個目錄，因此不能使用從 Redis 臨時分配的節點ID
+     */
+    private static long journalNodeId(NodeIdLease nodeIdLease) {
+        if (!nodeIdLease.isConfigured()) {
+            throw new IllegalStateException("開啟抽獎日誌（lottery.journal.enabled）時必須配置固定的 NODE_ID");
+        }
+        return nodeIdLease.getNodeId();
+    }
+
+    JournalDrawRecordWriter(DrawJournal journal, JdbcTemplate jdbcTemplate, int batchSize) {
+        this.journal = journal;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.position = journal.getCheckpoint();
+    }
+
+    @Override
+    public void write(List<DrawRecord> records) {
+        long transactionId = records.get(0).getId();
+        List<DrawJournalEntry> entries = records.stream()
+                .map(record -> DrawJournalEntry.of(transactionId, record))
+                .toList();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            journal.append(Stream.concat(entries.stream(), Stream.of(DrawJournalEntry.commit(transactionId))).toList());
+            return;
+        }
+
+        // 先註冊再寫日誌：寫日誌或寫入提交行失敗時事務回滾，afterCompletion 仍會追加 ABORT 並移出 inFlight
+        inFlight.add(transactionId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        journal.appendUnforced(List.of(DrawJournalEntry.commit(transactionId)));
+                    } else if (status == STATUS_ROLLED_BACK) {
+                        journal.appendUnforced(List.of(DrawJournalEntry.abort(transactionId)));
+                    }
+                } catch (Exception e) {
+                    log.warn("寫入抽獎日誌結果標記失敗，回寫時改由數據庫確認，事務：{}", transactionId, e);
+                } finally {
+                    inFlight.remove(transactionId);
+                }
+            }
+        });
+
+        journal.append(entries);
+        jdbcTemplate.update(INSERT_COMMIT_SQL, transactionId);
+    }
+
+    /**
+     * 啟動後回放上次未落庫的記錄（此時沒有進行中的事務，沒有標記的記錄全部由數據庫確認）
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void replay() {
+        log.info("開始回放抽獎日誌，檢查點：{}，寫入位置：{}", journal.getCheckpoint(), journal.getWritePosition());
+        flush();
+    }
+
+    /**
+     * 定時將日誌中已提交的記錄批量寫入數據庫
+     */
+    @Scheduled(fixedDelayString = "${lottery.journal.flush-interval-ms:200}")
+    public synchronized void flush() {
+        try {
+            while (true) {
+                JournalPosition next = persist(journal.read(position, batchSize));
+                if (next.equals(position)) {
+                    return;
+                }
+                position = next;
+                journal.commit(position);
+            }
+        } catch (Exception e) {
+            log.error("抽獎日誌回寫失敗，將於下次重試，位置：{}", position, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+        journal.close();
+    }
+
+    /**
+     * 寫入一批條目中已提交的記錄，返回下一次回寫的起始位置
+     * 遇到仍在進行中的事務時停在它的第一條記錄，之後的條目留到下一次
+     */
+    private JournalPosition persist(JournalBatch batch) {
+        List<DrawJournalEntry> entries = batch.getEntries();
+        Map<Long, DrawJournalEntry.Type> outcomes = new HashMap<>();
+        for (DrawJournalEntry entry : entries) {
+            if (!entry.isRecord()) {
+                outcomes.put(entry.getTransactionId(), entry.getType());
+            }
+        }
+
+        JournalPosition next = batch.getNext();
+        Map<Long, List<DrawJournalEntry>> transactions = new LinkedHashMap<>();
+        List<Long> resolved = new ArrayList<>();
+        for (int i = 0; i < entries.size(); i++) {
+            DrawJournalEntry entry = entries.get(i);
+            if (entry.getType() == DrawJournalEntry.Type.COMMIT) {
+                resolved.add(entry.getTransactionId());
+            } else if (entry.isRecord()) {
+                if (!outcomes.containsKey(entry.getTransactionId()) && inFlight.contains(entry.getTransactionId())) {
+                    next = batch.getPositions().get(i);
+                    break;
+                }
+                transactions.computeIfAbsent(entry.getTransactionId(), id -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        Set<Long> committed = committedWithoutMarker(transactions.keySet().stream()
+                .filter(id -> !outcomes.containsKey(id))
+                .toList());
+        List<DrawJournalEntry> records = transactions.entrySet().stream()
+                .filter(transaction -> outcomes.get(transaction.getKey()) == DrawJournalEntry.Type.COMMIT
+                        || committed.contains(transaction.getKey()))
+                .flatMap(transaction -> transaction.getValue().stream())
+                .toList();
+
+        if (!records.isEmpty()) {
+            insert(records);
+        }
+
+        // 已讀到 COMMIT 標記（標記在全部記錄之後）的事務記錄已落庫，不再需要數據庫確認；
+        // 沒有標記的保留，同一事務跨批或重新回放時仍能得到相同的結果
+        if (!resolved.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_COMMIT_SQL, resolved.stream().map(id -> new Object[]{id}).toList());
+        }
+
+        log.debug("抽獎日誌回寫 {} 條記錄", records.size());
+        return next;
+    }
+
+    /**
+     * 沒有結果標記的事務：draw_journal_commits 中存在即已提交（與抽獎在同一事務寫入）
+     */
+    private Set<Long> committedWithoutMarker(Collection<Long> transactionIds) {
+        if (transactionIds.isEmpty()) {
+            return Collections.emptySet();
+        }
+        String placeholders = transactionIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+        return new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT id FROM draw_journal_commits WHERE id IN (" + placeholders + ")",
+                Long.class, transactionIds.toArray()));
+    }
+
+    private void insert(List<DrawJournalEntry> records) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, records, records.size(), (ps, entry) -> {
+            Timestamp drawTime = Timestamp.valueOf(entry.getDrawTime());
+            ps.setLong(1, entry.getRecordId());
+            ps.setLong(2, entry.getActivityId());
+            ps.setLong(3, entry.getUserId());
+            if (entry.getPrizeId() != null) {
+                ps.setLong(4, entry.getPrizeId());
+            } else {
+                ps.setNull(4, Types.BIGINT);
+            }
+            ps.setTimestamp(5, drawTime);
+            ps.setBoolean(6, entry.isWinning());
+            ps.setString(7, entry.getPrizeName());
+            ps.setString(8, entry.getStatus().name());
+            ps.setTimestamp(9, drawTime);
+        });
+    }
+}
@@ -0,0 +1,19 @@
+package org.amway.service.record;
+
+import lombok.Value;
+
+/**
+ * 日誌位置（段號 + 段內偏移）
+ */
+@Value
+public class JournalPosition implements Comparable<JournalPosition> {
+
+    long segment;
+    int offset;
+
+    @Override
+    public int compareTo(JournalPosition other) {
+        int result = Long.compare(segment, other.segment);
+        return result != 0 ? result : Integer.compare(offset, other.offset);
+    }
+}
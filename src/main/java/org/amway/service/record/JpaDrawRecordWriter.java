@@ -0,0 +1,25 @@
+package org.amway.service.record;
+
+import lombok.RequiredArgsConstructor;
+import org.amway.entity.DrawRecord;
+import org.amway.repository.DrawRecordRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 同步寫入器：在抽獎事務內批量寫入 draw_records（默認）
+ */
+@Component
+@ConditionalOnProperty(name = "lottery.journal.enabled", havingValue = "false", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaDrawRecordWriter implements DrawRecordWriter {
+
+    private final DrawRecordRepository drawRecordRepository;
+
+    @Override
+    public void write(List<DrawRecord> records) {
+        drawRecordRepository.saveAll(records);
+    }
+}
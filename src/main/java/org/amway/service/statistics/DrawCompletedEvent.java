@@ -0,0 +1,18 @@
+package org.amway.service.statistics;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * 抽獎完成事件（一次抽獎請求發布一次），用於異步更新用戶抽獎統計
+ */
+@Value
+public class DrawCompletedEvent {
+
+    Long userId;
+    Long activityId;
+    LocalDateTime drawTime;
+    int draws;
+    int wins;
+}
@@ -0,0 +1,206 @@
+package org.amway.service.statistics;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 抽獎統計聚合器（寫合併）
+ * 抽獎事務提交後只在記憶體中按「用戶 + 活動 + 日期」累加增量，不觸碰數據庫；
+ * 後台定時以 INSERT ... ON DUPLICATE KEY UPDATE 批量合併寫入統計表，每個鍵每次只產生一條語句
+ * 抽獎執行緒從不寫數據庫：積壓過多時只通知後台執行緒提前寫入，統計表不可用不會拖慢抽獎
+ */
+@Slf4j
+@Component
+public class DrawStatisticsAggregator {
+
+    private static final String UPSERT_TOTAL_SQL =
+            "INSERT INTO user_draw_statistics " +
+            "(user_id, activity_id, total_draws, winning_draws, last_draw_time, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+            "ON DUPLICATE KEY UPDATE total_draws = total_draws + ?, winning_draws = winning_draws + ?, " +
+            "last_draw_time = GREATEST(COALESCE(last_draw_time, ?), ?), updated_at = CURRENT_TIMESTAMP";
+
+    private static final String UPSERT_DAILY_SQL =
+            "INSERT INTO user_daily_draw_statistics " +
+            "(user_id, activity_id, draw_date, daily_draws, daily_winning_draws, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP) " +
+            "ON DUPLICATE KEY UPDATE daily_draws = daily_draws + ?, daily_winning_draws = daily_winning_draws + ?, " +
+            "updated_at = CURRENT_TIMESTAMP";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPendingKeys;
+
+    /**
+     * 待寫入的增量；compute/remove 對同一個鍵是原子的（按哈希桶分段加鎖），累加與取走之間不會丟失
+     */
+    private final ConcurrentHashMap<StatisticsKey, Delta> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 提前寫入在獨立執行緒執行，同時最多排隊一次
+     */
+    private final ExecutorService earlyFlushExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("statistics-early-flush")
+            .setDaemon(true)
+            .build());
+    private final AtomicBoolean earlyFlushRequested = new AtomicBoolean();
+
+    public DrawStatisticsAggregator(JdbcTemplate jdbcTemplate,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${lottery.statistics.max-pending-keys:100000}") int maxPendingKeys) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maxPendingKeys = maxPendingKeys;
+    }
+
+    /**
+     * 抽獎事務提交後累加增量
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDrawCompleted(DrawCompletedEvent event) {
+        StatisticsKey key = new StatisticsKey(event.getUserId(), event.getActivityId(), event.getDrawTime().toLocalDate());
+        pending.compute(key, (k, delta) -> {
+            Delta result = delta != null ? delta : new Delta();
+            result.add(event.getDraws(), event.getWins(), event.getDrawTime());
+            return result;
+        });
+
+        if (pending.size() > maxPendingKeys) {
+            // 積壓過多（數據庫長時間不可用時）在後台提前觸發寫入，不在抽獎執行緒上等待數據庫
+            requestEarlyFlush();
+        }
+    }
+
+    /**
+     * 定時批量寫入統計表
+     */
+    @Scheduled(fixedDelayString = "${lottery.statistics.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<StatisticsKey, Delta> drained = new LinkedHashMap<>();
+        for (StatisticsKey key : pending.keySet()) {
+            Delta delta = pending.remove(key);
+            if (delta != null) {
+                drained.put(key, delta);
+            }
+        }
+
+        try {
+            // 兩張表在同一事務中寫入，失敗整體重試，不會重複累加
+            transactionTemplate.executeWithoutResult(status -> persist(drained));
+            log.debug("抽獎統計已合併寫入，鍵數：{}", drained.size());
+        } catch (Exception e) {
+            // 寫入失敗時把增量放回，下次重試
+            drained.forEach((key, delta) -> pending.merge(key, delta, Delta::merge));
+            log.error("抽獎統計寫入失敗，將於下次重試，鍵數：{}", drained.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        earlyFlushExecutor.shutdownNow();
+        flush();
+    }
+
+    private void requestEarlyFlush() {
+        if (!earlyFlushRequested.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            earlyFlushExecutor.execute(() -> {
+                earlyFlushRequested.set(false);
+                flush();
+            });
+        } catch (RejectedExecutionException e) {
+            // 關閉中，由 shutdown 寫入
+            earlyFlushRequested.set(false);
+        }
+    }
+
+    private void persist(Map<StatisticsKey, Delta> drained) {
+        // 總統計按用戶 + 活動再合併一次
+        Map<List<Long>, Delta> totals = new LinkedHashMap<>();
+        drained.forEach((key, delta) ->
+                totals.merge(List.of(key.getUserId(), key.getActivityId()), delta.copy(), Delta::merge));
+
+        List<Object[]> totalArgs = new ArrayList<>(totals.size());
+        totals.forEach((key, delta) -> {
+            Timestamp last = Timestamp.valueOf(delta.lastDrawTime);
+            totalArgs.add(new Object[]{key.get(0), key.get(1), delta.draws, delta.wins, last,
+                    delta.draws, delta.wins, last, last});
+        });
+
+        List<Object[]> dailyArgs = new ArrayList<>(drained.size());
+        drained.forEach((key, delta) -> dailyArgs.add(new Object[]{key.getUserId(), key.getActivityId(),
+                Date.valueOf(key.getDrawDate()), delta.draws, delta.wins, delta.draws, delta.wins}));
+
+        jdbcTemplate.batchUpdate(UPSERT_TOTAL_SQL, totalArgs);
+        jdbcTemplate.batchUpdate(UPSERT_DAILY_SQL, dailyArgs);
+    }
+
+    int pendingKeys() {
+        return pending.size();
+    }
+
+    @lombok.Value
+    static class StatisticsKey {
+        Long userId;
+        Long activityId;
+        LocalDate drawDate;
+    }
+
+    /**
+     * 單個鍵的增量，只在 ConcurrentHashMap.compute 內修改
+     */
+    static final class Delta {
+        private long draws;
+        private long wins;
+        private LocalDateTime lastDrawTime;
+
+        void add(int draws, int wins, LocalDateTime drawTime) {
+            this.draws += draws;
+            this.wins += wins;
+            if (lastDrawTime == null || drawTime.isAfter(lastDrawTime)) {
+                lastDrawTime = drawTime;
+            }
+        }
+
+        Delta merge(Delta other) {
+            draws += other.draws;
+            wins += other.wins;
+            if (lastDrawTime == null || (other.lastDrawTime != null && other.lastDrawTime.isAfter(lastDrawTime))) {
+                lastDrawTime = other.lastDrawTime;
+            }
+            return this;
+        }
+
+        Delta copy() {
+            return new Delta().merge(this);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package org.amway.service.stock;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.amway.cache.PrizeSnapshot;
+import org.amway.entity.Prize;
+import org.amway.repository.PrizeRepository;
+import org.amway.repository.PrizeStockShardRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * 數據庫庫存引擎
+ * 單條條件 UPDATE（remaining_stock >= n）原子扣減，以影響行數決定成功與否，不持有悲觀鎖
+ * 配置了多個分片的獎品改為扣減 prize_stock_shards，隨機選擇起始分片，不足時依序嘗試其餘分片
+ * 扣減不足時重新讀取獎品的分片數，快照過期（reshard 後尚未收到失效通知）時按最新配置扣減，不會扣到已停用的庫存
+ * 需在呼叫方事務內執行
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "lottery.stock.engine", havingValue = "database", matchIfMissing = true)
+public class DatabasePrizeStockEngine implements PrizeStockEngine {
+
+    /**
+     * 部分扣減時的重試次數上限（與其他請求競爭剩餘庫存）
+     */
+    private static final int MAX_PARTIAL_ATTEMPTS = 3;
+
+    private final PrizeRepository prizeRepository;
+    private final PrizeStockShardRepository shardRepository;
+    private final PrizeStockShardInitializer shardInitializer;
+
+    @Override
+    public int reserve(PrizeSnapshot prize, int quantity) {
+        Long prizeId = prize.getId();
+        int granted = reserve(prizeId, prize.getStockShards(), quantity);
+        if (granted == quantity) {
+            return granted;
+        }
+
+        // 其他節點 reshard 後本節點的快照在收到失效通知前已過期，按數據庫中的分片數扣減剩餘部分
+        int shardCount = prizeRepository.findStockShardsById(prizeId).orElse(prize.getStockShards());
+        if (shardCount != prize.getStockShards()) {
+            log.info("獎品分片數已變更，按最新配置扣減，獎品ID：{}，分片數：{} -> {}", prizeId, prize.getStockShards(), shardCount);
+            granted += reserve(prizeId, shardCount, quantity - granted);
+        }
+        return granted;
+    }
+
+    private int reserve(Long prizeId, int shardCount, int quantity) {
+        return shardCount > 1
+                ? reserveFromShards(prizeId, shardCount, quantity)
+                : reserveFromPrize(prizeId, quantity);
+    }
+
+    /**
+     * 分片獎品返回分片總和（Prize.getRemainingStock 載入時即時計算），不依賴定時回寫
+     */
+    @Override
+    public Map<Long, Integer> remainingStock(List<PrizeSnapshot> prizes) {
+        return prizeRepository.findAllById(prizes.stream().map(PrizeSnapshot::getId).toList()).stream()
+                .collect(Collectors.toMap(Prize::getId, Prize::getRemainingStock));
+    }
+
+    @Override
+    public void preload(Long activityId) {
+        prizeRepository.findByActivityId(activityId).stream()
+                .filter(prize -> !Boolean.TRUE.equals(prize.getUnlimitedStock()))
+                .filter(prize -> prize.getStockShards() != null && prize.getStockShards() > 1)
+                .forEach(prize -> shardInitializer.ensureShards(prize.getId()));
+    }
+
+    /**
+     * 定時將分片庫存總和回寫 prizes.remaining_stock（供直接查詢該欄位的報表等使用，實體讀取不依賴此回寫）
+     */
+    @Scheduled(fixedDelayString = "${lottery.stock.shard-sync-interval-ms:5000}")
+    public void syncShardedStock() {
+        try {
+            shardRepository.syncPrizeRemainingStock();
+        } catch (Exception e) {
+            log.error("分片庫存回寫失敗", e);
+        }
+    }
+
+    private int reserveFromPrize(Long prizeId, int quantity) {
+        if (prizeRepository.decreaseStockIfAvailable(prizeId, quantity) > 0) {
+            return quantity;
+        }
+        if (quantity == 1) {
+            return 0;
+        }
+
+        // 庫存不足以全數扣減時，盡量扣減剩餘部分
+        for (int attempt = 0; attempt < MAX_PARTIAL_ATTEMPTS; attempt++) {
+            int available = prizeRepository.findRemainingStockById(prizeId).orElse(0);
+            if (available <= 0) {
+                return 0;
+            }
+            int requested = Math.min(available, quantity);
+            if (prizeRepository.decreaseStockIfAvailable(prizeId, requested) > 0) {
+                return requested;
+            }
+        }
+        return 0;
+    }
+
+    private int reserveFromShards(Long prizeId, int shardCount, int quantity) {
+        int granted = takeFromShards(prizeId, shardCount, quantity);
+
+        // 所有分片都扣不到時，確認分片是否尚未初始化
+        if (granted == 0 && shardRepository.countByPrizeId(prizeId) == 0) {
+            shardInitializer.ensureShards(prizeId);
+            granted = takeFromShards(prizeId, shardCount, quantity);
+        }
+        return granted;
+    }
+
+    /**
+     * 從隨機起始分片開始依序扣減，只有全部分片都不足時才算庫存不足
+     */
+    private int takeFromShards(Long prizeId, int shardCount, int quantity) {
+        int start = ThreadLocalRandom.current().nextInt(shardCount);
+        int remaining = quantity;
+
+        for (int i = 0; i < shardCount && remaining > 0; i++) {
+            int shardNo = (start + i) % shardCount;
+
+            if (shardRepository.decreaseStockIfAvailable(prizeId, shardNo, remaining) > 0) {
+                remaining = 0;
+                break;
+            }
+            if (remaining == 1) {
+                continue;
+            }
+
+            int available = shardRepository.findRemainingStock(prizeId, shardNo).orElse(0);
+            int requested = Math.min(available, remaining);
+            if (requested > 0 && shardRepository.decreaseStockIfAvailable(prizeId, shardNo, requested) > 0) {
+                remaining -= requested;
+            }
+        }
+        return quantity - remaining;
+    }
+}
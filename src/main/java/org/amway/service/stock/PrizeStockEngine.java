@@ -0,0 +1,31 @@
+package org.amway.service.stock;
+
+import org.amway.cache.PrizeSnapshot;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 獎品庫存扣減引擎
+ * 由 lottery.stock.engine 選擇實現：database（默認）、redis
+ */
+public interface PrizeStockEngine {
+
+    /**
+     * 預扣庫存（只會對 requiresStock() 的獎品呼叫）
+     *
+     * @return 實際扣減的數量，0 表示庫存不足
+     */
+    int reserve(PrizeSnapshot prize, int quantity);
+
+    /**
+     * 批量讀取當前剩餘庫存（只會傳入 requiresStock() 的獎品），返回 獎品ID -> 剩餘庫存
+     */
+    Map<Long, Integer> remainingStock(List<PrizeSnapshot> prizes);
+
+    /**
+     * 預先載入活動所有獎品的庫存（活動開始前呼叫）
+     */
+    default void preload(Long activityId) {
+    }
+}
@@ -0,0 +1,105 @@
+package org.amway.service.stock;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.amway.cache.ActivityCacheInvalidator;
+import org.amway.entity.Prize;
+import org.amway.entity.PrizeStockShard;
+import org.amway.exception.BusinessException;
+import org.amway.exception.enums.ErrorCode;
+import org.amway.repository.PrizeRepository;
+import org.amway.repository.PrizeStockShardRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 庫存分片初始化與重建
+ * 首次扣減時在獨立事務中鎖定獎品行，將 remaining_stock 平均拆分到各分片（每個獎品只執行一次）
+ * 補貨或調整分片數必須經由 reshard，否則直接寫入 prizes.remaining_stock 的庫存會被分片總和回寫覆蓋
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PrizeStockShardInitializer {
+
+    private final PrizeRepository prizeRepository;
+    private final PrizeStockShardRepository shardRepository;
+    private final ActivityCacheInvalidator activityCacheInvalidator;
+
+    /**
+     * 按獎品當前的 stock_shards 建立分片
+     *
+     * @return 本次是否建立了分片
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public boolean ensureShards(Long prizeId) {
+        Prize prize = prizeRepository.findByIdWithLock(prizeId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.RESOURCE_NOT_FOUND, "獎品不存在"));
+
+        // 分片數已被 reshard 調整為 1 時，抽獎路徑可能仍持有舊的快照，不再建立分片
+        if (prize.getStockShards() == null || prize.getStockShards() <= 1
+                || shardRepository.countByPrizeId(prizeId) > 0) {
+            return false;
+        }
+
+        createShards(prizeId, prize.getStockShards(), prize.getRemainingStock());
+        return true;
+    }
+
+    /**
+     * 補貨或調整分片數：在同一事務中鎖定獎品行與全部分片，按新的剩餘庫存與分片數重建分片，並同步 prizes
+     * total_stock 隨剩餘庫存的變化同步調整，已發出的數量（total - remaining）保持不變
+     *
+     * @param remainingStock 新的剩餘庫存，null 表示保持當前剩餘庫存（分片總和）
+     * @param shardCount     新的分片數，1 表示不分片
+     * @return 重建後的剩餘庫存
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public int reshard(Long prizeId, Integer remainingStock, int shardCount) {
+        if (shardCount < 1 || (remainingStock != null && remainingStock < 0)) {
+            throw new BusinessException(ErrorCode.INVALID_PARAMETER, "庫存或分片數不合法");
+        }
+        Prize prize = prizeRepository.findByIdWithLock(prizeId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.RESOURCE_NOT_FOUND, "獎品不存在"));
+
+        List<PrizeStockShard> shards = shardRepository.findByPrizeIdWithLock(prizeId);
+        int current = shards.isEmpty()
+                ? prize.getRemainingStock()
+                : shards.stream().mapToInt(PrizeStockShard::getRemainingStock).sum();
+        int stock = remainingStock != null ? remainingStock : current;
+
+        shardRepository.deleteByPrizeId(prizeId);
+        if (shardCount > 1) {
+            createShards(prizeId, shardCount, stock);
+        }
+
+        prize.setTotalStock(prize.getTotalStock() + stock - current);
+        prize.setRemainingStock(stock);
+        prize.setStockShards(shardCount);
+        prizeRepository.save(prize);
+
+        // 分片數屬於獎品目錄快照，提交後通知各節點重新載入（提交前失效會讓其他節點重新載入舊配置）；
+        // 收到通知前持有舊快照的節點在扣減不足時會重讀分片數：1 -> N 時 prizes 的條件扣減不再生效，N -> 1 時分片已刪除
+        activityCacheInvalidator.prizeChanged(prize.getActivity().getId());
+        log.info("已重建庫存分片，獎品ID：{}，分片數：{}，庫存：{} -> {}", prizeId, shardCount, current, stock);
+        return stock;
+    }
+
+    private void createShards(Long prizeId, int shardCount, int stock) {
+        List<PrizeStockShard> shards = new ArrayList<>(shardCount);
+        for (int shardNo = 0; shardNo < shardCount; shardNo++) {
+            PrizeStockShard shard = new PrizeStockShard();
+            shard.setPrizeId(prizeId);
+            shard.setShardNo(shardNo);
+            shard.setRemainingStock(stock / shardCount + (shardNo < stock % shardCount ? 1 : 0));
+            shards.add(shard);
+        }
+        shardRepository.saveAll(shards);
+
+        log.info("已建立庫存分片，獎品ID：{}，分片數：{}，庫存：{}", prizeId, shardCount, stock);
+    }
+}
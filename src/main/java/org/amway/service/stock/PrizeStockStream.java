@@ -0,0 +1,139 @@
+package org.amway.service.stock;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.amway.dto.response.ActivityStockResponse;
+import org.amway.dto.response.PrizeStockResponse;
+import org.amway.exception.BusinessException;
+import org.amway.exception.enums.ErrorCode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 活動即時庫存 SSE 推送
+ * 訂閱時先推送一次當前庫存；之後每 stream-interval-ms 每個活動讀取一次 PrizeStockView，庫存有變化才推送給所有訂閱者
+ * 接口允許匿名訪問，每個連線佔用一個異步請求，因此本節點與每個活動的訂閱數都有上限，超過時返回 429；
+ * 連線在 stream-timeout-ms 後結束，由客戶端（EventSource）自動重連
+ */
+@Slf4j
+@Component
+public class PrizeStockStream {
+
+    private static final String EVENT_NAME = "stock";
+
+    private final PrizeStockView prizeStockView;
+    private final long timeoutMillis;
+    private final int maxSubscribers;
+    private final int maxSubscribersPerActivity;
+
+    private final Map<Long, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Long, List<PrizeStockResponse>> lastPushed = new ConcurrentHashMap<>();
+    private final AtomicInteger totalSubscribers = new AtomicInteger();
+
+    public PrizeStockStream(PrizeStockView prizeStockView,
+                            @Value("${lottery.stock.stream-timeout-ms:60000}") long timeoutMillis,
+                            @Value("${lottery.stock.stream-max-subscribers:2000}") int maxSubscribers,
+                            @Value("${lottery.stock.stream-max-subscribers-per-activity:500}") int maxSubscribersPerActivity) {
+        this.prizeStockView = prizeStockView;
+        this.timeoutMillis = timeoutMillis;
+        this.maxSubscribers = maxSubscribers;
+        this.maxSubscribersPerActivity = maxSubscribersPerActivity;
+    }
+
+    /**
+     * 訂閱活動庫存（活動不存在時拋出 RESOURCE_NOT_FOUND，訂閱數已滿時拋出 RATE_LIMIT_EXCEEDED）
+     */
+    public SseEmitter subscribe(Long activityId) {
+        ActivityStockResponse current = prizeStockView.get(activityId);
+
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        if (totalSubscribers.incrementAndGet() > maxSubscribers) {
+            totalSubscribers.decrementAndGet();
+            throw new BusinessException(ErrorCode.RATE_LIMIT_EXCEEDED, "庫存訂閱數已滿，請稍後再試");
+        }
+        boolean[] added = new boolean[1];
+        subscribers.compute(activityId, (id, emitters) -> {
+            Set<SseEmitter> result = emitters != null ? emitters : ConcurrentHashMap.newKeySet();
+            if (result.size() < maxSubscribersPerActivity) {
+                added[0] = result.add(emitter);
+            }
+            return result.isEmpty() ? null : result;
+        });
+        if (!added[0]) {
+            totalSubscribers.decrementAndGet();
+            throw new BusinessException(ErrorCode.RATE_LIMIT_EXCEEDED, "該活動庫存訂閱數已滿，請稍後再試");
+        }
+        emitter.onCompletion(() -> unsubscribe(activityId, emitter));
+        emitter.onTimeout(() -> unsubscribe(activityId, emitter));
+        emitter.onError(error -> unsubscribe(activityId, emitter));
+
+        send(activityId, emitter, current);
+        return emitter;
+    }
+
+    /**
+     * 定時推送有變化的活動庫存
+     */
+    @Scheduled(fixedDelayString = "${lottery.stock.stream-interval-ms:1000}")
+    public void push() {
+        subscribers.forEach((activityId, emitters) -> {
+            try {
+                ActivityStockResponse stock = prizeStockView.get(activityId);
+                if (stock.getPrizes().equals(lastPushed.put(activityId, stock.getPrizes()))) {
+                    return;
+                }
+                emitters.forEach(emitter -> send(activityId, emitter, stock));
+            } catch (Exception e) {
+                log.warn("推送活動庫存失敗，活動ID：{}", activityId, e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+        subscribers.clear();
+        totalSubscribers.set(0);
+    }
+
+    int subscriberCount(Long activityId) {
+        Set<SseEmitter> emitters = subscribers.get(activityId);
+        return emitters == null ? 0 : emitters.size();
+    }
+
+    int totalSubscriberCount() {
+        return totalSubscribers.get();
+    }
+
+    private void send(Long activityId, SseEmitter emitter, ActivityStockResponse stock) {
+        try {
+            emitter.send(SseEmitter.event().name(EVENT_NAME).data(stock));
+        } catch (IOException | IllegalStateException e) {
+            // 客戶端已斷開
+            unsubscribe(activityId, emitter);
+        }
+    }
+
+    private void unsubscribe(Long activityId, SseEmitter emitter) {
+        subscribers.computeIfPresent(activityId, (id, emitters) -> {
+            // 完成、超時與錯誤回調可能先後觸發，只在真正移除時釋放名額
+            if (emitters.remove(emitter)) {
+                totalSubscribers.decrementAndGet();
+            }
+            if (emitters.isEmpty()) {
+                lastPushed.remove(activityId);
+                return null;
+            }
+            return emitters;
+        });
+    }
+}
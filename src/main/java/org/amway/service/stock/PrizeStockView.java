@@ -0,0 +1,71 @@
+package org.amway.service.stock;
+
+import org.amway.cache.ActivityDescriptorCache;
+import org.amway.cache.PrizeCatalog;
+import org.amway.cache.PrizeCatalogCache;
+import org.amway.cache.PrizeSnapshot;
+import org.amway.cache.SingleFlightCache;
+import org.amway.dto.response.ActivityStockResponse;
+import org.amway.dto.response.PrizeStockResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 活動即時庫存視圖
+ * 與活動列表 / 詳情的長時間快取分開，由庫存引擎讀取（database：prizes 表；redis：MGET 庫存計數）
+ * 每個活動的結果在本節點保留 view-ttl-ms，大量客戶端輪詢時每個節點每個週期只讀取一次
+ */
+@Component
+public class PrizeStockView {
+
+    private final ActivityDescriptorCache activityDescriptorCache;
+    private final PrizeCatalogCache prizeCatalogCache;
+    private final PrizeStockEngine prizeStockEngine;
+    private final SingleFlightCache<Long, ActivityStockResponse> views;
+
+    public PrizeStockView(ActivityDescriptorCache activityDescriptorCache,
+                          PrizeCatalogCache prizeCatalogCache,
+                          PrizeStockEngine prizeStockEngine,
+                          @Value("${lottery.stock.view-ttl-ms:1000}") long ttlMillis) {
+        this.activityDescriptorCache = activityDescriptorCache;
+        this.prizeCatalogCache = prizeCatalogCache;
+        this.prizeStockEngine = prizeStockEngine;
+        this.views = new SingleFlightCache<>(1000, Duration.ofMillis(ttlMillis));
+    }
+
+    /**
+     * 獲取活動各獎品的剩餘庫存（活動不存在時拋出 RESOURCE_NOT_FOUND）
+     */
+    public ActivityStockResponse get(Long activityId) {
+        return views.get(activityId, this::load);
+    }
+
+    private ActivityStockResponse load(Long activityId) {
+        activityDescriptorCache.get(activityId);
+        PrizeCatalog catalog = prizeCatalogCache.get(activityId);
+
+        List<PrizeSnapshot> stocked = catalog.getPrizes().stream()
+                .filter(PrizeSnapshot::requiresStock)
+                .toList();
+        Map<Long, Integer> remaining = stocked.isEmpty() ? Map.of() : prizeStockEngine.remainingStock(stocked);
+
+        List<PrizeStockResponse> prizes = catalog.getPrizes().stream()
+                .map(prize -> PrizeStockResponse.builder()
+                        .prizeId(prize.getId())
+                        .remainingStock(prize.requiresStock() ? remaining.getOrDefault(prize.getId(), 0) : null)
+                        .unlimitedStock(!prize.requiresStock())
+                        .build())
+                .toList();
+
+        return ActivityStockResponse.builder()
+                .activityId(activityId)
+                .updatedAt(LocalDateTime.now())
+                .prizes(prizes)
+                .build();
+    }
+}
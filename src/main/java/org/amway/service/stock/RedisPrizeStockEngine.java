@@ -0,0 +1,245 @@
+package org.amway.service.stock;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.amway.cache.PrizeSnapshot;
+import org.amway.entity.Prize;
+import org.amway.exception.BusinessException;
+import org.amway.exception.enums.ErrorCode;
+import org.amway.repository.DrawRecordRepository;
+import org.amway.repository.LotteryActivityRepository;
+import org.amway.repository.PrizeRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Redis 庫存引擎
+ * 庫存以 Redis 為準，通過 Lua 腳本原子性「檢查並扣減」，數據庫 remaining_stock 由後台定時異步回寫
+ * Redis 中的計數器缺失（冷啟動、重啟或故障切換）時，remaining_stock 可能落後最多一個回寫間隔，
+ * 因此以 remaining_stock 與「total_stock − 已提交的中獎記錄數」中較小者恢復，寧可少發也不超發
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "lottery.stock.engine", havingValue = "redis")
+public class RedisPrizeStockEngine implements PrizeStockEngine {
+
+    private static final String STOCK_KEY_PREFIX = "lottery:stock:";
+
+    /**
+     * 返回 -1：庫存未載入；否則返回實際扣減數量
+     */
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local stock = redis.call('GET', KEYS[1]) " +
+            "if not stock then return -1 end " +
+            "stock = tonumber(stock) " +
+            "if stock <= 0 then return 0 end " +
+            "local granted = math.min(stock, tonumber(ARGV[1])) " +
+            "redis.call('DECRBY', KEYS[1], granted) " +
+            "return granted",
+            Long.class
+    );
+
+    /**
+     * 只在計數器仍存在時歸還；計數器已過期 / 被淘汰 / 被刪除時不重建（否則只含歸還數量的計數器會阻止 restoreIfAbsent 恢復），
+     * 返回 -1 表示未歸還，由下次扣減時從數據庫恢復
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end " +
+            "return redis.call('INCRBY', KEYS[1], ARGV[1])",
+            Long.class
+    );
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final PrizeRepository prizeRepository;
+    private final LotteryActivityRepository activityRepository;
+    private final DrawRecordRepository drawRecordRepository;
+
+    /**
+     * 尚未回寫數據庫的獎品
+     */
+    private final Set<Long> dirtyPrizeIds = ConcurrentHashMap.newKeySet();
+
+    public RedisPrizeStockEngine(StringRedisTemplate stringRedisTemplate,
+                                 PrizeRepository prizeRepository,
+                                 LotteryActivityRepository activityRepository,
+                                 DrawRecordRepository drawRecordRepository) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.prizeRepository = prizeRepository;
+        this.activityRepository = activityRepository;
+        this.drawRecordRepository = drawRecordRepository;
+    }
+
+    @Override
+    public int reserve(PrizeSnapshot prize, int quantity) {
+        Long prizeId = prize.getId();
+        String key = stockKey(prizeId);
+        Long granted = stringRedisTemplate.execute(RESERVE_SCRIPT, Collections.singletonList(key), String.valueOf(quantity));
+
+        if (granted != null && granted < 0) {
+            // 庫存尚未載入（冷啟動或 Redis 重啟），從數據庫恢復後重試
+            loadStock(prizeId);
+            granted = stringRedisTemplate.execute(RESERVE_SCRIPT, Collections.singletonList(key), String.valueOf(quantity));
+        }
+
+        int result = granted == null ? 0 : Math.max(0, granted.intValue());
+        if (result > 0) {
+            dirtyPrizeIds.add(prizeId);
+            compensateOnRollback(prizeId, result);
+        }
+        return result;
+    }
+
+    /**
+     * 一次 MGET 讀取；Redis 中尚未載入的獎品退回數據庫的值
+     */
+    @Override
+    public Map<Long, Integer> remainingStock(List<PrizeSnapshot> prizes) {
+        List<Long> prizeIds = prizes.stream().map(PrizeSnapshot::getId).toList();
+        List<String> values = stringRedisTemplate.opsForValue()
+                .multiGet(prizeIds.stream().map(this::stockKey).toList());
+
+        Map<Long, Integer> stock = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (int i = 0; i < prizeIds.size(); i++) {
+            String value = values == null ? null : values.get(i);
+            if (value != null) {
+                stock.put(prizeIds.get(i), Math.max(0, Integer.parseInt(value)));
+            } else {
+                missing.add(prizeIds.get(i));
+            }
+        }
+        if (!missing.isEmpty()) {
+            prizeRepository.findAllById(missing)
+                    .forEach(prize -> stock.put(prize.getId(), prize.getRemainingStock()));
+        }
+        return stock;
+    }
+
+    @Override
+    public void preload(Long activityId) {
+        prizeRepository.findByActivityId(activityId).stream()
+                .filter(prize -> prize.getPrizeType() != Prize.PrizeType.NO_PRIZE)
+                .filter(prize -> !Boolean.TRUE.equals(prize.getUnlimitedStock()))
+                .forEach(this::restoreIfAbsent);
+    }
+
+    /**
+     * 啟動後對帳：為進行中活動恢復 Redis 中缺失的庫存
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcile() {
+        try {
+            activityRepository.findActiveActivities(LocalDateTime.now())
+                    .forEach(activity -> preload(activity.getId()));
+            log.info("Redis 庫存對帳完成");
+        } catch (Exception e) {
+            log.error("Redis 庫存對帳失敗", e);
+        }
+    }
+
+    /**
+     * 定時將 Redis 庫存回寫數據庫
+     */
+    @Scheduled(fixedDelayString = "${lottery.stock.sync-interval-ms:1000}")
+    public void flush() {
+        if (dirtyPrizeIds.isEmpty()) {
+            return;
+        }
+
+        for (Long prizeId : dirtyPrizeIds) {
+            dirtyPrizeIds.remove(prizeId);
+            try {
+                String stock = stringRedisTemplate.opsForValue().get(stockKey(prizeId));
+                if (stock != null) {
+                    prizeRepository.updateRemainingStock(prizeId, Integer.parseInt(stock));
+                }
+            } catch (Exception e) {
+                dirtyPrizeIds.add(prizeId);
+                log.error("庫存回寫失敗，獎品ID：{}", prizeId, e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void loadStock(Long prizeId) {
+        Prize prize = prizeRepository.findById(prizeId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.RESOURCE_NOT_FOUND, "獎品不存在"));
+        restoreIfAbsent(prize);
+    }
+
+    /**
+     * 以數據庫恢復缺失的計數器；remaining_stock 未包含尚未回寫的扣減，以中獎記錄數校正
+     * 開啟抽獎日誌時中獎記錄同樣可能落後，兩者取較小值仍是目前可得的最保守估計
+     */
+    void restoreIfAbsent(Prize prize) {
+        String key = stockKey(prize.getId());
+        if (Boolean.TRUE.equals(stringRedisTemplate.hasKey(key))) {
+            return;
+        }
+
+        int synced = prize.getRemainingStock();
+        long issued = drawRecordRepository.countWinningDraws(prize.getId());
+        int stock = (int) Math.max(0, Math.min(synced, prize.getTotalStock() - issued));
+
+        Boolean restored = stringRedisTemplate.opsForValue().setIfAbsent(key, String.valueOf(stock));
+        if (!Boolean.TRUE.equals(restored)) {
+            return;
+        }
+        if (stock < synced) {
+            log.warn("Redis 庫存缺失，數據庫剩餘庫存 {} 落後於中獎記錄，已按記錄校正為 {}，獎品ID：{}，已發出：{}",
+                    synced, stock, prize.getId(), issued);
+        } else {
+            log.info("已從數據庫載入庫存，獎品ID：{}，庫存：{}，已發出：{}", prize.getId(), stock, issued);
+        }
+    }
+
+    /**
+     * 外層事務回滾時歸還已扣減的庫存（只在計數器仍存在時歸還）
+     */
+    private void compensateOnRollback(Long prizeId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                Long stock = stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(stockKey(prizeId)),
+                        String.valueOf(quantity));
+                if (stock != null && stock >= 0) {
+                    dirtyPrizeIds.add(prizeId);
+                } else {
+                    log.warn("Redis 庫存計數器已不存在，回滾時不歸還，將於下次扣減時從數據庫恢復，獎品ID：{}，數量：{}",
+                            prizeId, quantity);
+                }
+            }
+        });
+    }
+
+    private String stockKey(Long prizeId) {
+        return STOCK_KEY_PREFIX + prizeId;
+    }
+}
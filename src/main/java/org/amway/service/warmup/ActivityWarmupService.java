@@ -0,0 +1,257 @@
+package org.amway.service.warmup;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.amway.cache.ActivityDescriptorCache;
+import org.amway.cache.PrizeCatalog;
+import org.amway.cache.PrizeCatalogCache;
+import org.amway.dto.response.WarmupStatusResponse;
+import org.amway.entity.LotteryActivity;
+import org.amway.exception.BusinessException;
+import org.amway.exception.enums.ErrorCode;
+import org.amway.repository.LotteryActivityRepository;
+import org.amway.service.ActivityService;
+import org.amway.service.stock.PrizeStockEngine;
+import org.amway.service.stock.PrizeStockView;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 活動預熱
+ * 每個節點定時掃描 lead-minutes 內即將開始的活動，預先載入抽獎路徑需要的一切：
+ * 活動描述、獎品目錄與抽樣器、庫存（Redis 計數 / 分片）、活動詳情快取、即時庫存視圖，並執行抽樣器熱身與建立數據庫連線
+ * 完整預熱每個活動每個節點只做一次；之後每次掃描只刷新有過期時間的快取，保證活動開始時仍在快取中
+ * 各節點的預熱狀態寫入 Redis（lottery:warmup:{activityId}），供管理接口彙總查看
+ */
+@Slf4j
+@Service
+public class ActivityWarmupService {
+
+    public static final String STATUS_WARMING = "WARMING";
+    public static final String STATUS_READY = "READY";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private static final String STATUS_KEY_PREFIX = "lottery:warmup:";
+    private static final Duration STATUS_RETENTION = Duration.ofDays(1);
+
+    private final LotteryActivityRepository activityRepository;
+    private final ActivityDescriptorCache activityDescriptorCache;
+    private final PrizeCatalogCache prizeCatalogCache;
+    private final PrizeStockEngine prizeStockEngine;
+    private final PrizeStockView prizeStockView;
+    private final ActivityService activityService;
+    private final DataSource dataSource;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final long nodeId;
+    private final long leadMinutes;
+    private final int connections;
+    private final int sampleIterations;
+
+    /**
+     * 本節點的預熱狀態
+     */
+    private final Map<Long, WarmupStatusResponse> statuses = new ConcurrentHashMap<>();
+
+    public ActivityWarmupService(LotteryActivityRepository activityRepository,
+                                 ActivityDescriptorCache activityDescriptorCache,
+                                 PrizeCatalogCache prizeCatalogCache,
+                                 PrizeStockEngine prizeStockEngine,
+                                 PrizeStockView prizeStockView,
+                                 ActivityService activityService,
+                                 DataSource dataSource,
+                                 StringRedisTemplate redisTemplate,
+                                 ObjectMapper objectMapper,
+                                 @Value("#{@nodeIdLease.nodeId}") long nodeId,
+                                 @Value("${lottery.warmup.lead-minutes:5}") long leadMinutes,
+                                 @Value("${lottery.warmup.connections:10}") int connections,
+                                 @Value("${lottery.warmup.sample-iterations:20000}") int sampleIterations) {
+        this.activityRepository = activityRepository;
+        this.activityDescriptorCache = activityDescriptorCache;
+        this.prizeCatalogCache = prizeCatalogCache;
+        this.prizeStockEngine = prizeStockEngine;
+        this.prizeStockView = prizeStockView;
+        this.activityService = activityService;
+        this.dataSource = dataSource;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.nodeId = nodeId;
+        this.leadMinutes = leadMinutes;
+        this.connections = connections;
+        this.sampleIterations = sampleIterations;
+    }
+
+    /**
+     * 定時掃描即將開始的活動
+     */
+    @Scheduled(fixedDelayString = "${lottery.warmup.scan-interval-ms:30000}")
+    public void scan() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            statuses.values().removeIf(status -> status.getStartTime().isBefore(now.minus(STATUS_RETENTION)));
+
+            for (LotteryActivity activity : activityRepository.findUpcomingActivities(now, now.plusMinutes(leadMinutes))) {
+                WarmupStatusResponse status = statuses.get(activity.getId());
+                if (status != null && STATUS_READY.equals(status.getStatus())) {
+                    refresh(activity.getId());
+                } else {
+                    warm(activity);
+                }
+            }
+        } catch (Exception e) {
+            log.error("掃描待預熱活動失敗", e);
+        }
+    }
+
+    /**
+     * 立即在本節點預熱指定活動（管理接口手動觸發）
+     */
+    public WarmupStatusResponse warm(Long activityId) {
+        LotteryActivity activity = activityRepository.findById(activityId)
+                .orElseThrow(() -> new BusinessException(ErrorCode.RESOURCE_NOT_FOUND, "活動不存在"));
+        return warm(activity);
+    }
+
+    /**
+     * 本節點的預熱狀態（按活動開始時間排序）
+     */
+    public List<WarmupStatusResponse> getLocalStatuses() {
+        return statuses.values().stream()
+                .sorted(Comparator.comparing(WarmupStatusResponse::getStartTime))
+                .toList();
+    }
+
+    /**
+     * 所有節點對指定活動的預熱狀態
+     */
+    public List<WarmupStatusResponse> getClusterStatuses(Long activityId) {
+        List<WarmupStatusResponse> result = new ArrayList<>();
+        for (Object value : redisTemplate.opsForHash().values(statusKey(activityId))) {
+            try {
+                result.add(objectMapper.readValue(value.toString(), WarmupStatusResponse.class));
+            } catch (JsonProcessingException e) {
+                log.warn("忽略無法解析的預熱狀態，活動ID：{}", activityId, e);
+            }
+        }
+        result.sort(Comparator.comparing(WarmupStatusResponse::getNodeId));
+        return result;
+    }
+
+    private synchronized WarmupStatusResponse warm(LotteryActivity activity) {
+        Long activityId = activity.getId();
+        long started = System.nanoTime();
+        WarmupStatusResponse status = WarmupStatusResponse.builder()
+                .activityId(activityId)
+                .activityName(activity.getName())
+                .startTime(activity.getStartTime())
+                .nodeId(nodeId)
+                .status(STATUS_WARMING)
+                .build();
+        report(status);
+        log.info("開始預熱活動，活動ID：{}，開始時間：{}", activityId, activity.getStartTime());
+
+        try {
+            PrizeCatalog catalog = refresh(activityId);
+            prizeStockEngine.preload(activityId);
+            prizeStockView.get(activityId);
+            exerciseSampler(catalog);
+            warmConnections();
+
+            status = status.toBuilder()
+                    .status(STATUS_READY)
+                    .warmedAt(LocalDateTime.now())
+                    .durationMillis(Duration.ofNanos(System.nanoTime() - started).toMillis())
+                    .build();
+            log.info("活動預熱完成，活動ID：{}，耗時：{} ms", activityId, status.getDurationMillis());
+        } catch (Exception e) {
+            status = status.toBuilder()
+                    .status(STATUS_FAILED)
+                    .durationMillis(Duration.ofNanos(System.nanoTime() - started).toMillis())
+                    .message(e.getMessage())
+                    .build();
+            log.error("活動預熱失敗，將於下次掃描重試，活動ID：{}", activityId, e);
+        }
+        report(status);
+        return status;
+    }
+
+    /**
+     * 載入（或刷新）有過期時間的快取
+     */
+    private PrizeCatalog refresh(Long activityId) {
+        activityDescriptorCache.get(activityId);
+        activityService.getActivityDetail(activityId);
+        return prizeCatalogCache.get(activityId);
+    }
+
+    /**
+     * 執行抽樣讓 JIT 在流量到來前編譯抽樣路徑（不扣減庫存、不寫入任何數據）
+     */
+    private void exerciseSampler(PrizeCatalog catalog) {
+        if (catalog.getPrizes().isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < sampleIterations; i++) {
+            catalog.sample();
+        }
+    }
+
+    /**
+     * 同時借出多個連線，讓連線池在活動開始前建立好連線
+     */
+    private void warmConnections() throws SQLException {
+        int count = warmableConnections();
+        List<Connection> borrowed = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                borrowed.add(dataSource.getConnection());
+            }
+        } finally {
+            for (Connection connection : borrowed) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * 節點可能已在處理其他活動的流量：Hikari 連線池最多借出 maximumPoolSize - minimumIdle 個，
+     * 至少保留 minimumIdle 個給抽獎請求，預熱不會佔滿連線池而讓請求等待 connectionTimeout
+     */
+    int warmableConnections() throws SQLException {
+        if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+            return connections;
+        }
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+        return Math.max(0, Math.min(connections, pool.getMaximumPoolSize() - pool.getMinimumIdle()));
+    }
+
+    private void report(WarmupStatusResponse status) {
+        statuses.put(status.getActivityId(), status);
+        try {
+            String key = statusKey(status.getActivityId());
+            redisTemplate.opsForHash().put(key, String.valueOf(nodeId), objectMapper.writeValueAsString(status));
+            redisTemplate.expire(key, STATUS_RETENTION);
+        } catch (Exception e) {
+            log.warn("上報預熱狀態失敗，活動ID：{}", status.getActivityId(), e);
+        }
+    }
+
+    private String statusKey(Long activityId) {
+        return STATUS_KEY_PREFIX + activityId;
+    }
+}
@@ -0,0 +1,124 @@
+package org.amway.util;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Vose 別名表抽樣器
+ * 建表 O(n)，抽樣 O(1) 且不產生任何物件配置，建立後不可變、可跨執行緒共用
+ */
+public final class AliasSampler {
+
+    private final double[] probability;
+    private final int[] alias;
+
+    private AliasSampler(double[] probability, int[] alias) {
+        this.probability = probability;
+        this.alias = alias;
+    }
+
+    /**
+     * 以「累積機率輪盤」語義建表：累積值超過 1 的部分截斷，不足 1 的剩餘機率歸入最後一項
+     * 與原本 selectPrizeByProbability 的線性輪盤結果分布完全一致
+     */
+    public static AliasSampler fromCumulativeProbabilities(double[] probabilities) {
+        int n = probabilities.length;
+        if (n == 0) {
+            throw new IllegalArgumentException("機率列表不能為空");
+        }
+
+        double[] weights = new double[n];
+        double cumulative = 0.0;
+        for (int i = 0; i < n; i++) {
+            double before = Math.min(cumulative, 1.0);
+            cumulative += Math.max(0.0, probabilities[i]);
+            weights[i] = Math.min(cumulative, 1.0) - before;
+        }
+        weights[n - 1] += 1.0 - Math.min(cumulative, 1.0);
+
+        return fromWeights(weights);
+    }
+
+    /**
+     * 以任意非負權重建表（權重總和需大於 0）
+     */
+    public static AliasSampler fromWeights(double[] weights) {
+        int n = weights.length;
+        double total = 0.0;
+        for (double weight : weights) {
+            if (weight < 0 || Double.isNaN(weight)) {
+                throw new IllegalArgumentException("權重不能為負數");
+            }
+            total += weight;
+        }
+        if (n == 0 || total <= 0) {
+            throw new IllegalArgumentException("權重總和必須大於 0");
+        }
+
+        double[] probability = new double[n];
+        int[] alias = new int[n];
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallSize = 0;
+        int largeSize = 0;
+
+        for (int i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / total;
+            if (scaled[i] < 1.0) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+
+            probability[less] = scaled[less];
+            alias[less] = more;
+
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+
+        // 浮點誤差殘留的項目視為機率 1
+        while (largeSize > 0) {
+            int index = large[--largeSize];
+            probability[index] = 1.0;
+            alias[index] = index;
+        }
+        while (smallSize > 0) {
+            int index = small[--smallSize];
+            probability[index] = 1.0;
+            alias[index] = index;
+        }
+
+        return new AliasSampler(probability, alias);
+    }
+
+    /**
+     * 抽樣，返回被選中項目的索引
+     */
+    public int sample() {
+        return sample(ThreadLocalRandom.current());
+    }
+
+    public int sample(RandomGenerator random) {
+        double u = random.nextDouble() * probability.length;
+        int column = (int) u;
+        if (column >= probability.length) {
+            column = probability.length - 1;
+        }
+        return (u - column) < probability[column] ? column : alias[column];
+    }
+
+    public int size() {
+        return probability.length;
+    }
+}
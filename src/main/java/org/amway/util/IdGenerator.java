@@ -0,0 +1,9 @@
+package org.amway.util;
+
+/**
+ * 應用層 ID 生成器（取代數據庫自增 ID，使 Hibernate 可以批量寫入）
+ */
+public interface IdGenerator {
+
+    long nextId();
+}
@@ -0,0 +1,139 @@
+package org.amway.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 節點ID租約
+ * 每個實例在 Redis 中以 SET NX 佔用 lottery:node-id:{id}，租約到期前定時續期，關閉時釋放
+ * 配置了 NODE_ID 時只校驗唯一：在一個租期內仍被其他實例佔用則啟動失敗（崩潰重啟時等待舊租約過期）；
+ * 未配置時從隨機位置開始依序尋找空閒的節點ID
+ */
+@Slf4j
+public class NodeIdLease {
+
+    static final String KEY_PREFIX = "lottery:node-id:";
+
+    /**
+     * 返回 1：仍持有（或已重新佔用）租約；0：已被其他實例佔用
+     */
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "local owner = redis.call('GET', KEYS[1]) " +
+            "if owner == ARGV[1] then redis.call('PEXPIRE', KEYS[1], ARGV[2]) return 1 end " +
+            "if not owner then redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) return 1 end " +
+            "return 0",
+            Long.class
+    );
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end " +
+            "return 0",
+            Long.class
+    );
+
+    private static final Duration RETRY_INTERVAL = Duration.ofSeconds(1);
+
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+    private final String token = UUID.randomUUID().toString();
+    private final long nodeId;
+    private final boolean configured;
+
+    /**
+     * @param configuredNodeId 配置的節點ID，null 表示從 Redis 分配
+     */
+    public NodeIdLease(StringRedisTemplate redisTemplate, Long configuredNodeId, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.ttl = ttl;
+        this.configured = configuredNodeId != null;
+        this.nodeId = configured ? acquireConfigured(configuredNodeId) : acquireFree();
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * 節點ID是否來自配置（跨重啟保持不變）
+     */
+    public boolean isConfigured() {
+        return configured;
+    }
+
+    @Scheduled(fixedDelayString = "${lottery.id.renew-interval-ms:10000}")
+    public void renew() {
+        try {
+            Long renewed = redisTemplate.execute(RENEW_SCRIPT, Collections.singletonList(key(nodeId)),
+                    token, String.valueOf(ttl.toMillis()));
+            if (renewed != null && renewed == 0) {
+                log.error("節點ID {} 的租約已被其他實例佔用，兩個實例可能生成重複的 ID，請檢查 NODE_ID 配置", nodeId);
+            }
+        } catch (Exception e) {
+            log.warn("節點ID {} 續期失敗，等待下次重試", nodeId, e);
+        }
+    }
+
+    public void release() {
+        try {
+            redisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(key(nodeId)), token);
+        } catch (Exception e) {
+            log.warn("釋放節點ID {} 失敗，等待租約過期", nodeId, e);
+        }
+    }
+
+    private long acquireConfigured(long nodeId) {
+        if (nodeId < 0 || nodeId > SnowflakeIdGenerator.MAX_NODE_ID) {
+            throw new IllegalArgumentException("節點ID必須在 0 ~ " + SnowflakeIdGenerator.MAX_NODE_ID + " 之間：" + nodeId);
+        }
+
+        // 崩潰後立即重啟時舊租約尚未過期，最多等待一個租期
+        long deadline = System.nanoTime() + ttl.toNanos();
+        while (!tryAcquire(nodeId)) {
+            if (System.nanoTime() - deadline > 0) {
+                throw new IllegalStateException("節點ID " + nodeId + " 已被其他實例使用，NODE_ID 必須在每個實例唯一");
+            }
+            log.warn("節點ID {} 仍被佔用，等待舊租約過期", nodeId);
+            sleep(RETRY_INTERVAL);
+        }
+        log.info("已佔用節點ID：{}", nodeId);
+        return nodeId;
+    }
+
+    private long acquireFree() {
+        int slots = (int) SnowflakeIdGenerator.MAX_NODE_ID + 1;
+        int start = ThreadLocalRandom.current().nextInt(slots);
+        for (int i = 0; i < slots; i++) {
+            long candidate = (start + i) % slots;
+            if (tryAcquire(candidate)) {
+                log.info("未配置 NODE_ID，已從 Redis 分配節點ID：{}", candidate);
+                return candidate;
+            }
+        }
+        throw new IllegalStateException("沒有空閒的節點ID（0 ~ " + SnowflakeIdGenerator.MAX_NODE_ID + "）");
+    }
+
+    private boolean tryAcquire(long candidate) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key(candidate), token, ttl));
+    }
+
+    private static String key(long nodeId) {
+        return KEY_PREFIX + nodeId;
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("等待節點ID租約時被中斷", e);
+        }
+    }
+}
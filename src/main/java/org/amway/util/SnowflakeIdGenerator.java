@@ -0,0 +1,64 @@
+package org.amway.util;
+
+import java.util.function.LongSupplier;
+
+/**
+ * 雪花 ID 生成器
+ * 64 位：1 位符號 + 41 位毫秒時間戳（自 2025-01-01 起）+ 10 位節點 + 12 位序號
+ * 同一節點單調遞增；時鐘回撥時沿用上次時間戳繼續遞增，不阻塞也不重複
+ */
+public class SnowflakeIdGenerator implements IdGenerator {
+
+    /**
+     * 2025-01-01T00:00:00Z
+     */
+    public static final long EPOCH = 1735689600000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+
+    private long lastTimestamp = -1L;
+    private long sequence;
+
+    public SnowflakeIdGenerator(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("節點ID必須在 0 ~ " + MAX_NODE_ID + " 之間：" + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    @Override
+    public synchronized long nextId() {
+        long timestamp = Math.max(clock.getAsLong(), lastTimestamp);
+
+        if (timestamp == lastTimestamp) {
+            sequence = (sequence + 1) & SEQUENCE_MASK;
+            if (sequence == 0) {
+                // 同一毫秒序號用盡，借用下一毫秒
+                timestamp = lastTimestamp + 1;
+            }
+        } else {
+            sequence = 0;
+        }
+        lastTimestamp = timestamp;
+
+        return ((timestamp - EPOCH) << (NODE_BITS + SEQUENCE_BITS))
+                | (nodeId << SEQUENCE_BITS)
+                | sequence;
+    }
+
+    public static long nodeIdOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+}
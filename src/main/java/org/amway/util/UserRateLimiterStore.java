@@ -0,0 +1,217 @@
+package org.amway.util;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用戶維度限流器存儲
+ * 每個用戶只佔兩個 long：用戶 ID 與令牌桶狀態。令牌桶以 GCRA 表示為一個「理論到達時間」（TAT，System.nanoTime 刻度），
+ * 請求在 now >= TAT - 容忍度 時放行並把 TAT 推後一個間隔；容量為 max(1, qps)，即最多累積一秒的令牌
+ * 存儲分為多個條帶，每個條帶是一張開放定址（線性探測）的 long[] 雜湊表，各自加鎖，不為每個用戶配置物件
+ * TAT 不晚於當前時間的條目與不存在的用戶完全等價（桶已滿），擴容前先清除這些閒置條目，因此記憶體只隨活躍用戶數增長
+ * 條目數達到上限（按條帶平均分配）時淘汰該條帶中最早到期的條目，該用戶的令牌桶等同被重置
+ */
+public final class UserRateLimiterStore {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final int STRIPES = 64;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final int maxCapacity;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    /**
+     * @param permitsPerSecond 每個用戶每秒許可數
+     * @param maxEntries       最多保存的用戶數（超過時淘汰最早到期的條目）
+     */
+    public UserRateLimiterStore(double permitsPerSecond, long maxEntries) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("每秒許可數必須大於 0");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.toleranceNanos = intervalNanos * (Math.max(1, (long) permitsPerSecond) - 1);
+
+        // 每個條帶的槽位數取不超過上限的 2 的冪（負載因子 0.75），總條目數不超過 maxEntries
+        long slotsPerStripe = Math.max(4, maxEntries * 4 / 3 / STRIPES);
+        this.maxCapacity = Integer.highestOneBit((int) Math.min(slotsPerStripe, 1 << 30));
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(Math.min(INITIAL_CAPACITY, maxCapacity));
+        }
+    }
+
+    /**
+     * 嘗試為用戶獲取一個許可，不等待
+     */
+    public boolean tryAcquire(long userId) {
+        return tryAcquire(userId, System.nanoTime());
+    }
+
+    boolean tryAcquire(long userId, long nowNanos) {
+        if (userId == EMPTY) {
+            throw new IllegalArgumentException("不支持的用戶ID：" + userId);
+        }
+        long hash = mix(userId);
+        return stripes[(int) hash & (STRIPES - 1)].tryAcquire(userId, hash, nowNanos);
+    }
+
+    /**
+     * 當前保存的條目數（含尚未清除的閒置條目）
+     */
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * 最多可保存的條目數
+     */
+    public long maxEntries() {
+        return (long) threshold(maxCapacity) * STRIPES;
+    }
+
+    private static int threshold(int capacity) {
+        return Math.max(1, capacity - (capacity >>> 2));
+    }
+
+    /**
+     * murmur3 fmix64：低位選條帶，高位選槽位
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static int slot(long hash, int mask) {
+        return (int) (hash >>> 32) & mask;
+    }
+
+    private final class Stripe {
+
+        private long[] keys;
+        private long[] tats;
+        private int size;
+
+        Stripe(int capacity) {
+            allocate(capacity);
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized boolean tryAcquire(long key, long hash, long now) {
+            int mask = keys.length - 1;
+            int index = slot(hash, mask);
+            while (keys[index] != EMPTY) {
+                if (keys[index] == key) {
+                    long tat = tats[index];
+                    if (tat - toleranceNanos - now > 0) {
+                        return false;
+                    }
+                    tats[index] = (tat - now > 0 ? tat : now) + intervalNanos;
+                    return true;
+                }
+                index = (index + 1) & mask;
+            }
+
+            if (size + 1 > threshold(keys.length)) {
+                makeRoom(now);
+                insert(key, hash, now + intervalNanos);
+            } else {
+                keys[index] = key;
+                tats[index] = now + intervalNanos;
+                size++;
+            }
+            return true;
+        }
+
+        /**
+         * 清除閒置條目；活躍條目仍然過多時擴容，已達上限時淘汰最早到期的條目
+         */
+        private void makeRoom(long now) {
+            int live = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY && tats[i] - now > 0) {
+                    live++;
+                }
+            }
+            int capacity = keys.length;
+            while (live + 1 > threshold(capacity) && capacity < maxCapacity) {
+                capacity <<= 1;
+            }
+
+            long[] oldKeys = keys;
+            long[] oldTats = tats;
+            allocate(capacity);
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY && oldTats[i] - now > 0) {
+                    insert(oldKeys[i], mix(oldKeys[i]), oldTats[i]);
+                }
+            }
+            if (size + 1 > threshold(capacity)) {
+                evictEarliest();
+            }
+        }
+
+        private void evictEarliest() {
+            int victim = -1;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != EMPTY && (victim < 0 || tats[i] - tats[victim] < 0)) {
+                    victim = i;
+                }
+            }
+            removeAt(victim);
+        }
+
+        private void insert(long key, long hash, long tat) {
+            int mask = keys.length - 1;
+            int index = slot(hash, mask);
+            while (keys[index] != EMPTY) {
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            tats[index] = tat;
+            size++;
+        }
+
+        /**
+         * 線性探測的後移刪除：把後續同一探測鏈上的條目前移，不留墓碑
+         */
+        private void removeAt(int index) {
+            int mask = keys.length - 1;
+            int hole = index;
+            int next = index;
+            while (true) {
+                next = (next + 1) & mask;
+                if (keys[next] == EMPTY) {
+                    break;
+                }
+                int home = slot(mix(keys[next]), mask);
+                boolean reachable = hole <= next ? (home > hole && home <= next) : (home > hole || home <= next);
+                if (!reachable) {
+                    keys[hole] = keys[next];
+                    tats[hole] = tats[next];
+                    hole = next;
+                }
+            }
+            keys[hole] = EMPTY;
+            size--;
+        }
+
+        private void allocate(int capacity) {
+            keys = new long[capacity];
+            tats = new long[capacity];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.amway.cache;
+
+import org.amway.entity.LotteryActivity;
+import org.amway.repository.LotteryActivityRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("活動時間軸測試")
+class ActivityTimelineTest {
+
+    private LotteryActivityRepository activityRepository;
+    private Cache activeActivities;
+    private ActivityTimeline timeline;
+
+    @BeforeEach
+    void setUp() {
+        activityRepository = mock(LotteryActivityRepository.class);
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager(ActivityCacheInvalidator.ACTIVE_ACTIVITIES);
+        activeActivities = cacheManager.getCache(ActivityCacheInvalidator.ACTIVE_ACTIVITIES);
+        timeline = new ActivityTimeline(activityRepository, cacheManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        timeline.shutdown();
+    }
+
+    @Test
+    @DisplayName("測試計時器在開始與結束時間翻轉進行中集合，並清除活動列表快取")
+    void testFlipAtBoundaries() {
+        LocalDateTime now = LocalDateTime.now();
+        LotteryActivity running = activity(1L, now.minusDays(1), now.plusDays(1));
+        LotteryActivity upcoming = activity(2L, now.plusNanos(300_000_000), now.plusNanos(600_000_000));
+        when(activityRepository.findSchedulableActivities(any())).thenReturn(List.of(running, upcoming));
+
+        assertEquals(List.of(1L), timeline.getActiveIds());
+        assertNull(timeline.getActive(2L));
+
+        activeActivities.put(ActivityCacheInvalidator.ACTIVE_ACTIVITIES_KEY, List.of());
+        awaitTrue(() -> timeline.getActive(2L) != null);
+        assertEquals(List.of(1L, 2L), timeline.getActiveIds());
+        assertNull(activeActivities.get(ActivityCacheInvalidator.ACTIVE_ACTIVITIES_KEY), "開始時應清除活動列表快取");
+
+        activeActivities.put(ActivityCacheInvalidator.ACTIVE_ACTIVITIES_KEY, List.of());
+        awaitTrue(() -> timeline.getActive(2L) == null);
+        assertEquals(List.of(1L), timeline.getActiveIds());
+        assertNull(activeActivities.get(ActivityCacheInvalidator.ACTIVE_ACTIVITIES_KEY), "結束時應清除活動列表快取");
+
+        verify(activityRepository, times(1)).findSchedulableActivities(any());
+    }
+
+    @Test
+    @DisplayName("測試管理員停用與重新上線活動後刷新快照")
+    void testRefreshOnStatusChange() {
+        LocalDateTime now = LocalDateTime.now();
+        LotteryActivity running = activity(1L, now.minusDays(1), now.plusDays(1));
+        when(activityRepository.findSchedulableActivities(any())).thenReturn(List.of(running));
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(running));
+        ActivityDescriptor before = timeline.getActive(1L);
+        assertNotNull(before);
+
+        running.setStatus(LotteryActivity.ActivityStatus.INACTIVE);
+        timeline.refresh(1L);
+        assertNull(timeline.getActive(1L));
+        assertTrue(timeline.getActiveIds().isEmpty());
+
+        running.setStatus(LotteryActivity.ActivityStatus.ACTIVE);
+        running.setMaxDrawsPerUser(10);
+        timeline.refresh(1L);
+        assertEquals(10, timeline.getActive(1L).getMaxDrawsPerUser());
+    }
+
+    private LotteryActivity activity(Long id, LocalDateTime startTime, LocalDateTime endTime) {
+        LotteryActivity activity = new LotteryActivity();
+        activity.setId(id);
+        activity.setName("活動" + id);
+        activity.setStartTime(startTime);
+        activity.setEndTime(endTime);
+        activity.setMaxDrawsPerUser(5);
+        activity.setLimitType("TOTAL");
+        activity.setStatus(LotteryActivity.ActivityStatus.ACTIVE);
+        return activity;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待時間軸翻轉超時");
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
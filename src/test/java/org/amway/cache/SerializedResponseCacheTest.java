@@ -0,0 +1,90 @@
+package org.amway.cache;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.amway.dto.response.ActivityResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.io.ByteArrayInputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("預先序列化響應快取測試")
+class SerializedResponseCacheTest {
+
+    private ObjectMapper objectMapper;
+    private SerializedResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        cache = new SerializedResponseCache(objectMapper);
+    }
+
+    @Test
+    @DisplayName("測試同一實例複用位元組，內容相同的新實例 ETag 不變")
+    void testReuseAndStableEtag() {
+        ActivityResponse activity = activity("活動");
+
+        SerializedResponse first = cache.get("activity:1", activity);
+        assertSame(first, cache.get("activity:1", activity));
+
+        SerializedResponse reloaded = cache.get("activity:1", activity("活動"));
+        assertNotSame(first, reloaded);
+        assertEquals(first.getEtag(), reloaded.getEtag());
+
+        assertNotEquals(first.getEtag(), cache.get("activity:1", activity("改名")).getEtag());
+    }
+
+    @Test
+    @DisplayName("測試 If-None-Match 相符時返回 304")
+    void testNotModified() throws Exception {
+        SerializedResponse response = cache.get("activity:1", activity("活動"));
+
+        ResponseEntity<byte[]> ok = response.toResponseEntity(null, null);
+        assertEquals(HttpStatus.OK, ok.getStatusCode());
+        assertEquals(response.getEtag(), ok.getHeaders().getETag());
+        JsonNode body = objectMapper.readTree(ok.getBody());
+        assertTrue(body.get("success").asBoolean());
+        assertEquals("活動", body.get("data").get("name").asText());
+
+        ResponseEntity<byte[]> notModified = response.toResponseEntity("\"other\", W/" + response.getEtag(), null);
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+    }
+
+    @Test
+    @DisplayName("測試大響應按 Accept-Encoding 返回 gzip")
+    void testGzip() throws Exception {
+        SerializedResponse small = cache.get("activity:1", activity("活動"));
+        assertNull(small.getGzip());
+        assertNull(small.toResponseEntity(null, "gzip").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+
+        SerializedResponse large = cache.get("activity:2", activity("活動".repeat(SerializedResponse.GZIP_MIN_BYTES)));
+        ResponseEntity<byte[]> gzipped = large.toResponseEntity(null, "br, gzip;q=0.8");
+        assertEquals("gzip", gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(large.getGzipEtag(), gzipped.getHeaders().getETag());
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(gzipped.getBody()))) {
+            assertArrayEquals(large.getJson(), input.readAllBytes());
+        }
+
+        assertNull(large.toResponseEntity(null, "gzip;q=0").getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertEquals(HttpStatus.NOT_MODIFIED, large.toResponseEntity(large.getEtag(), "gzip").getStatusCode());
+    }
+
+    private ActivityResponse activity(String name) {
+        return ActivityResponse.builder()
+                .id(1L)
+                .name(name)
+                .status("ACTIVE")
+                .maxDrawsPerUser(3)
+                .build();
+    }
+}
@@ -0,0 +1,97 @@
+package org.amway.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("防擊穿本地快取測試")
+class SingleFlightCacheTest {
+
+    @Test
+    @DisplayName("測試併發未命中只載入一次")
+    void testSingleFlight() throws Exception {
+        SingleFlightCache<Long, String> cache = new SingleFlightCache<>(100, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return cache.get(1L, key -> {
+                    loads.incrementAndGet();
+                    sleep(50);
+                    return "v" + key;
+                });
+            }));
+        }
+        start.countDown();
+        for (Future<String> result : results) {
+            assertEquals("v1", result.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("測試熱門鍵在過期前於背景刷新，讀取不阻塞")
+    void testEarlyRefresh() {
+        SingleFlightCache<Long, Integer> cache = new SingleFlightCache<>(100, Duration.ofSeconds(1));
+        AtomicInteger loads = new AtomicInteger();
+        // 載入耗時 100ms，刷新大多發生在過期前數百毫秒內，在舊條目過期前完成
+        Function<Long, Integer> loader = key -> {
+            sleep(100);
+            return loads.incrementAndGet();
+        };
+        cache.get(1L, loader);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        while (!Integer.valueOf(2).equals(cache.getIfPresent(1L)) && System.nanoTime() < deadline) {
+            long started = System.nanoTime();
+            assertNotNull(cache.get(1L, loader));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started) < 50, "命中時不應等待載入");
+            sleep(5);
+        }
+
+        assertEquals(2, cache.getIfPresent(1L), "應在過期前於背景刷新");
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    @DisplayName("測試載入返回 null 時不快取，異常原樣拋出")
+    void testNullAndException() {
+        SingleFlightCache<Long, String> cache = new SingleFlightCache<>(100, Duration.ofMinutes(1));
+
+        assertNull(cache.get(1L, key -> null));
+        assertNull(cache.getIfPresent(1L));
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> cache.get(2L, key -> {
+                    throw new IllegalArgumentException("活動不存在");
+                }));
+        assertEquals("活動不存在", error.getMessage());
+        assertEquals("v", cache.get(2L, key -> "v"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
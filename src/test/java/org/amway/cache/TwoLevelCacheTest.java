@@ -0,0 +1,120 @@
+package org.amway.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("二級快取測試")
+class TwoLevelCacheTest {
+
+    private static final String CHANNEL = "lottery:cache:invalidate";
+
+    private StringRedisTemplate redisTemplate;
+    private Cache remote;
+    private CacheInvalidationBus busA;
+    private CacheInvalidationBus busB;
+    private TwoLevelCache cacheA;
+    private TwoLevelCache cacheB;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        remote = spy(new ConcurrentMapCache("activity"));
+
+        // 兩個節點共用同一個 L2
+        busA = new CacheInvalidationBus(redisTemplate, CHANNEL);
+        busB = new CacheInvalidationBus(redisTemplate, CHANNEL);
+        cacheA = (TwoLevelCache) new TwoLevelCacheManager(singleCacheManager(), busA, 100, 60).getCache("activity");
+        cacheB = (TwoLevelCache) new TwoLevelCacheManager(singleCacheManager(), busB, 100, 60).getCache("activity");
+    }
+
+    @Test
+    @DisplayName("測試 L1 命中時不訪問 L2")
+    void testLocalHitSkipsRemote() {
+        remote.put(1L, "v1");
+
+        assertEquals("v1", cacheA.get(1L, String.class));
+        assertEquals("v1", cacheA.get(1L, String.class));
+        assertEquals("v1", cacheA.get(1L, () -> "loaded"));
+
+        verify(remote, times(1)).get(1L);
+    }
+
+    @Test
+    @DisplayName("測試 evict 廣播後其他節點清除 L1，自己發出的消息被忽略")
+    void testEvictBroadcast() {
+        remote.put(1L, "v1");
+        remote.put("all", List.of("a"));
+        cacheA.get(1L);
+        cacheB.get(1L);
+        cacheB.get("all");
+
+        cacheA.evict(1L);
+        remote.put(1L, "v2");
+
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), message.capture());
+
+        assertEquals("v1", cacheB.get(1L, String.class), "消息送達前 B 節點仍讀取 L1");
+        deliver(busB, message.getValue());
+        deliver(busA, message.getValue());
+        assertEquals("v2", cacheB.get(1L, String.class));
+        assertEquals("v2", cacheA.get(1L, String.class));
+
+        // 只失效對應的鍵
+        clearInvocations(remote);
+        cacheB.get("all");
+        verify(remote, never()).get("all");
+    }
+
+    @Test
+    @DisplayName("測試 clear 廣播清空其他節點整個 L1")
+    void testClearBroadcast() {
+        remote.put("all", "v1");
+        cacheB.get("all");
+
+        cacheA.clear();
+        remote.put("all", "v2");
+
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), message.capture());
+        deliver(busB, message.getValue());
+
+        assertEquals("v2", cacheB.get("all", String.class));
+    }
+
+    @Test
+    @DisplayName("測試發布失敗不影響本地失效")
+    void testPublishFailure() {
+        doThrow(new RuntimeException("Redis 不可用")).when(redisTemplate).convertAndSend(anyString(), anyString());
+        remote.put(1L, "v1");
+        cacheA.get(1L);
+
+        assertDoesNotThrow(() -> cacheA.evict(1L));
+        assertNull(cacheA.get(1L));
+    }
+
+    private org.springframework.cache.CacheManager singleCacheManager() {
+        org.springframework.cache.CacheManager manager = mock(org.springframework.cache.CacheManager.class);
+        when(manager.getCache("activity")).thenReturn(remote);
+        return manager;
+    }
+
+    private static void deliver(CacheInvalidationBus bus, String body) {
+        bus.onMessage(new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8),
+                body.getBytes(StandardCharsets.UTF_8)), null);
+    }
+}
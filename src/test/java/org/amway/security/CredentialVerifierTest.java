@@ -0,0 +1,130 @@
+package org.amway.security;
+
+import org.amway.exception.BusinessException;
+import org.amway.exception.enums.ErrorCode;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("登入密碼校驗測試")
+class CredentialVerifierTest {
+
+    @Test
+    @DisplayName("測試成功校驗的憑證被快取，錯誤密碼與修改後的密碼不命中")
+    void testCredentialCache() {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+        AtomicInteger hashes = new AtomicInteger();
+        CredentialVerifier verifier = new CredentialVerifier(counting(bcrypt, hashes), 2, 8, 3000, 100, 300);
+        String encoded = bcrypt.encode("secret");
+
+        assertTrue(verifier.matches("alice", "secret", encoded).join());
+        assertTrue(verifier.matches("alice", "secret", encoded).join());
+        assertEquals(1, hashes.get(), "重複登入不應再執行 BCrypt");
+
+        assertFalse(verifier.matches("alice", "wrong", encoded).join());
+        assertFalse(verifier.matches("alice", "wrong", encoded).join());
+        assertEquals(3, hashes.get(), "校驗失敗不快取");
+
+        assertFalse(verifier.matches("alice", "secret", bcrypt.encode("changed")).join(), "密碼修改後快取失效");
+        assertEquals(4, hashes.get());
+        verifier.shutdown();
+    }
+
+    @Test
+    @DisplayName("測試校驗執行緒與隊列佔滿時立即拒絕，調用方不阻塞")
+    void testRejectWhenSaturated() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CredentialVerifier verifier = new CredentialVerifier(blocking(started, release, new AtomicInteger()),
+                1, 1, 5000, 100, 300);
+
+        long begin = System.nanoTime();
+        CompletableFuture<Boolean> running = verifier.matches("a", "p", "p");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = verifier.matches("b", "p", "p");
+        CompletableFuture<Boolean> rejected = verifier.matches("c", "p", "p");
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin) < 1000, "調用方不應等待校驗結果");
+
+        assertRateLimited(rejected);
+        assertFalse(running.isDone());
+
+        release.countDown();
+        assertTrue(running.get(5, TimeUnit.SECONDS));
+        assertTrue(queued.get(5, TimeUnit.SECONDS));
+        verifier.shutdown();
+    }
+
+    @Test
+    @DisplayName("測試等待超時返回限流錯誤，排隊中已超時的任務不再計算")
+    void testTimeoutSkipsQueuedTask() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger hashes = new AtomicInteger();
+        CredentialVerifier verifier = new CredentialVerifier(blocking(started, release, hashes), 1, 1, 200, 100, 300);
+
+        CompletableFuture<Boolean> running = verifier.matches("a", "p", "p");
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Boolean> queued = verifier.matches("b", "p", "p");
+
+        assertRateLimited(running);
+        assertRateLimited(queued);
+
+        // 已開始的計算跑完後丟棄結果，排隊中的任務直接跳過
+        release.countDown();
+        Thread.sleep(100);
+        assertTrue(verifier.matches("c", "p", "p").get(5, TimeUnit.SECONDS));
+        assertEquals(2, hashes.get(), "只有 a 與 c 執行了計算");
+        verifier.shutdown();
+    }
+
+    private static void assertRateLimited(CompletableFuture<Boolean> future) {
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        BusinessException cause = assertInstanceOf(BusinessException.class, exception.getCause());
+        assertEquals(ErrorCode.RATE_LIMIT_EXCEEDED, cause.getErrorCode());
+    }
+
+    private static PasswordEncoder blocking(CountDownLatch started, CountDownLatch release, AtomicInteger counter) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return rawPassword.toString();
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                counter.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+    }
+
+    private static PasswordEncoder counting(PasswordEncoder delegate, AtomicInteger counter) {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                return delegate.encode(rawPassword);
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                counter.incrementAndGet();
+                return delegate.matches(rawPassword, encodedPassword);
+            }
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package org.amway.security;
+
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+@DisplayName("JWT 驗證測試")
+class JwtUtilTest {
+
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        jwtUtil = new JwtUtil(mock(RedisTemplate.class));
+        ReflectionTestUtils.setField(jwtUtil, "secret", "testSecretKeyForJWTTokenGenerationMustBeLongerThan256Bits");
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 3600000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshTokenExpiration", 604800000L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(jwtUtil, "verifiedCacheTtlSeconds", 300L);
+        jwtUtil.init();
+    }
+
+    @Test
+    @DisplayName("測試一次驗證返回完整聲明，重複請求命中快取")
+    void testVerifyAndCache() {
+        String token = jwtUtil.generateAccessToken("alice", 42L, "ADMIN");
+
+        JwtPrincipal principal = jwtUtil.verify(token);
+
+        assertEquals("alice", principal.getUsername());
+        assertEquals(42L, principal.getUserId());
+        assertEquals("ADMIN", principal.getRole());
+        assertEquals("ACCESS", principal.getType());
+        assertNotNull(principal.getTokenId());
+        assertNotEquals(principal.getTokenId(), jwtUtil.verify(jwtUtil.generateAccessToken("alice", 42L, "ADMIN")).getTokenId(),
+                "每個 Token 的 jti 唯一");
+        assertFalse(principal.isExpired(System.currentTimeMillis()));
+        assertSame(principal, jwtUtil.verify(token), "重複驗證應返回快取的聲明");
+    }
+
+    @Test
+    @DisplayName("測試篡改的 Token 驗證失敗且不進入快取")
+    void testTamperedToken() {
+        String token = jwtUtil.generateAccessToken("alice", 42L, "USER");
+        String[] parts = token.split("\\.");
+        String forged = jwtUtil.generateAccessToken("alice", 42L, "ADMIN").split("\\.")[1];
+        String tampered = parts[0] + "." + forged + "." + parts[2];
+
+        assertThrows(JwtException.class, () -> jwtUtil.verify(tampered));
+        assertThrows(JwtException.class, () -> jwtUtil.verify(tampered));
+        assertEquals("USER", jwtUtil.verify(token).getRole());
+    }
+
+    @Test
+    @DisplayName("測試快取中的 Token 到期後不再被接受")
+    void testCachedTokenExpires() throws Exception {
+        // exp 以秒為單位，1.5 秒後過期的 Token 簽發時一定仍然有效
+        ReflectionTestUtils.setField(jwtUtil, "accessTokenExpiration", 1500L);
+        String token = jwtUtil.generateAccessToken("alice", 42L, "USER");
+        JwtPrincipal principal = jwtUtil.verify(token);
+
+        Thread.sleep(Math.max(0, principal.getExpiresAtMillis() - System.currentTimeMillis()) + 50);
+
+        assertThrows(ExpiredJwtException.class, () -> jwtUtil.verify(token));
+    }
+}
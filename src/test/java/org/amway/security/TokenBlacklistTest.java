@@ -0,0 +1,117 @@
+package org.amway.security;
+
+import org.amway.cache.CacheInvalidationBus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("Token 黑名單測試")
+class TokenBlacklistTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOperations;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private TokenBlacklist blacklist;
+    private Consumer<Object> remoteRevocations;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        when(zSetOperations.rangeByScore(eq(TokenBlacklist.INDEX_KEY), anyDouble(), anyDouble()))
+                .thenReturn(Set.of("revoked-before-start"));
+
+        blacklist = new TokenBlacklist(redisTemplate, invalidationBus, 1000, 0.001);
+
+        ArgumentCaptor<Consumer<Object>> subscriber = ArgumentCaptor.forClass(Consumer.class);
+        verify(invalidationBus).subscribe(eq(TokenBlacklist.TOPIC), subscriber.capture());
+        remoteRevocations = subscriber.getValue();
+    }
+
+    @Test
+    @DisplayName("測試過濾器載入前查詢 Redis，載入後未撤銷的 Token 不訪問 Redis")
+    void testFilterSkipsRedis() {
+        blacklist.isRevoked(principal("token-1"));
+        verify(redisTemplate).hasKey("blacklist:token-1");
+
+        blacklist.rebuild();
+        verify(zSetOperations).removeRangeByScore(eq(TokenBlacklist.INDEX_KEY), eq(0.0), anyDouble());
+        clearInvocations(redisTemplate);
+
+        for (int i = 0; i < 100; i++) {
+            assertFalse(blacklist.isRevoked(principal("token-" + i)));
+        }
+        verify(redisTemplate, never()).hasKey(anyString());
+
+        when(redisTemplate.hasKey("blacklist:revoked-before-start")).thenReturn(true);
+        assertTrue(blacklist.isRevoked(principal("revoked-before-start")), "快照中的撤銷應命中過濾器並由 Redis 確認");
+    }
+
+    @Test
+    @DisplayName("測試撤銷寫入 Redis 並廣播，本節點立即生效")
+    void testRevoke() {
+        blacklist.rebuild();
+        JwtPrincipal principal = principal("token-1");
+
+        blacklist.revoke(principal);
+
+        verify(valueOperations).set(eq("blacklist:token-1"), eq("1"), longThat(ttl -> ttl > 0), eq(TimeUnit.MILLISECONDS));
+        verify(zSetOperations).add(TokenBlacklist.INDEX_KEY, "token-1", principal.getExpiresAtMillis());
+        verify(invalidationBus).publish(TokenBlacklist.TOPIC, "token-1");
+
+        when(redisTemplate.hasKey("blacklist:token-1")).thenReturn(true);
+        assertTrue(blacklist.isRevoked(principal));
+    }
+
+    @Test
+    @DisplayName("測試其他節點的撤銷經廣播加入本地過濾器")
+    void testRemoteRevocation() {
+        blacklist.rebuild();
+        assertFalse(blacklist.isRevoked(principal("token-2")));
+
+        remoteRevocations.accept("token-2");
+        when(redisTemplate.hasKey("blacklist:token-2")).thenReturn(true);
+
+        assertTrue(blacklist.isRevoked(principal("token-2")));
+    }
+
+    private JwtPrincipal principal(String tokenId) {
+        return JwtPrincipal.builder()
+                .tokenId(tokenId)
+                .username("alice")
+                .userId(1L)
+                .role("USER")
+                .type("ACCESS")
+                .expiresAtMillis(System.currentTimeMillis() + 3600000)
+                .build();
+    }
+}
@@ -0,0 +1,138 @@
+package org.amway.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.amway.cache.ActivityCacheInvalidator;
+import org.amway.cache.ActivityTimeline;
+import org.amway.dto.response.ActivityResponse;
+import org.amway.entity.LotteryActivity;
+import org.amway.entity.Prize;
+import org.amway.repository.LotteryActivityRepository;
+import org.amway.repository.PrizeRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 活動服務查詢語句數測試
+ * 使用 Hibernate 統計計算實際發出的 SQL 語句數，防止 N+1 回歸
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "logging.level.org.hibernate.engine.internal.StatisticalLoggingSessionEventListener=WARN"
+})
+@ActiveProfiles("test")
+@DisplayName("活動服務測試")
+class ActivityServiceTest {
+
+    private static final int ACTIVITY_COUNT = 30;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private LotteryActivityRepository activityRepository;
+
+    @Autowired
+    private PrizeRepository prizeRepository;
+
+    private ActivityTimeline activityTimeline;
+    private ActivityCacheInvalidator activityCacheInvalidator;
+    private ActivityService activityService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        activityTimeline = new ActivityTimeline(activityRepository, new NoOpCacheManager());
+        activityCacheInvalidator = mock(ActivityCacheInvalidator.class);
+        activityService = new ActivityService(activityRepository, prizeRepository,
+                activityTimeline, activityCacheInvalidator);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < ACTIVITY_COUNT; i++) {
+            LotteryActivity activity = new LotteryActivity();
+            activity.setName("活動" + i);
+            activity.setStartTime(now.minusDays(1));
+            activity.setEndTime(now.plusDays(1));
+            activity.setMaxDrawsPerUser(5);
+            entityManager.persist(activity);
+
+            for (int j = 0; j < 3; j++) {
+                Prize prize = new Prize();
+                prize.setActivity(activity);
+                prize.setName("獎品" + i + "-" + j);
+                prize.setTotalStock(10);
+                prize.setRemainingStock(10);
+                prize.setProbability(new BigDecimal("0.1"));
+                entityManager.persist(prize);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        activityTimeline.reload();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    @DisplayName("測試活動列表固定兩條查詢，與活動數量無關")
+    void testActiveActivitiesStatementCount() {
+        List<ActivityResponse> activities = activityService.getActiveActivities();
+
+        assertEquals(ACTIVITY_COUNT, activities.size());
+        activities.forEach(activity -> {
+            assertEquals(3, activity.getPrizes().size());
+            activity.getPrizes().forEach(prize ->
+                    assertTrue(prize.getName().startsWith(activity.getName().replace("活動", "獎品") + "-")));
+        });
+        assertEquals(2, statistics.getPrepareStatementCount(), "按時間軸 ID 查詢活動 + 批量獎品查詢");
+    }
+
+    @Test
+    @DisplayName("測試活動詳情兩條查詢")
+    void testActivityDetailStatementCount() {
+        Long activityId = activityRepository.findAll().get(0).getId();
+        entityManager.clear();
+        statistics.clear();
+
+        ActivityResponse activity = activityService.getActivityDetail(activityId);
+
+        assertEquals(3, activity.getPrizes().size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("測試停用活動後通知快取失效，時間軸刷新後移出進行中列表")
+    void testUpdateStatus() {
+        Long activityId = activityTimeline.getActiveIds().get(0);
+
+        ActivityResponse response = activityService.updateStatus(activityId, LotteryActivity.ActivityStatus.INACTIVE);
+        entityManager.flush();
+
+        assertEquals("INACTIVE", response.getStatus());
+        verify(activityCacheInvalidator).activityChanged(activityId);
+
+        activityTimeline.refresh(activityId);
+        assertNull(activityTimeline.getActive(activityId));
+        List<ActivityResponse> activities = activityService.getActiveActivities();
+        assertEquals(ACTIVITY_COUNT - 1, activities.size());
+        assertTrue(activities.stream().noneMatch(activity -> activity.getId().equals(activityId)));
+    }
+}
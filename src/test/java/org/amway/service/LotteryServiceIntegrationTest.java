@@ -1,25 +1,28 @@
 package org.amway.service;
 
+import org.amway.cache.ActivityCacheInvalidator;
 import org.amway.dto.request.DrawRequest;
 import org.amway.dto.response.DrawResponse;
 import org.amway.entity.*;
 import org.amway.exception.BusinessException;
 import org.amway.exception.enums.ErrorCode;
 import org.amway.repository.*;
+import org.amway.service.statistics.DrawStatisticsAggregator;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.test.context.ActiveProfiles;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Collections;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -58,6 +61,15 @@ class LotteryServiceIntegrationTest {
     @Autowired
     private UserDailyDrawStatisticsRepository dailyStatisticsRepository;
 
+    @Autowired
+    private ActivityCacheInvalidator activityCacheInvalidator;
+
+    @Autowired
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Autowired
+    private DrawStatisticsAggregator statisticsAggregator;
+
     private User testUser;
     private LotteryActivity dailyActivity;
     private LotteryActivity totalActivity;
@@ -113,6 +125,10 @@ class LotteryServiceIntegrationTest {
         // 為活動創建獎品
         createPrizesForActivity(dailyActivity);
         createPrizesForActivity(totalActivity);
+
+        // 直接寫入數據庫的活動不會進入抽獎路徑的活動時間軸，需要像後台修改活動一樣觸發刷新
+        activityCacheInvalidator.activityChanged(dailyActivity.getId());
+        activityCacheInvalidator.activityChanged(totalActivity.getId());
     }
 
     private void createPrizesForActivity(LotteryActivity activity) {
@@ -153,12 +169,17 @@ class LotteryServiceIntegrationTest {
         drawRecordRepository.deleteAll();
         statisticsRepository.deleteAll();
         dailyStatisticsRepository.deleteAll();
+
+        // 剩餘次數由 Redis 計數器決定，需要一併清理
+        Set<String> quotaKeys = stringRedisTemplate.keys("lottery:quota:*");
+        if (quotaKeys != null && !quotaKeys.isEmpty()) {
+            stringRedisTemplate.delete(quotaKeys);
+        }
     }
 
     @Test
     @Order(1)
     @DisplayName("整合測試：每日限制超出")
-    @Transactional
     void testDailyLimitExceeded() {
         // Arrange
         DrawRequest firstRequest = new DrawRequest(dailyActivity.getId(), 3);
@@ -181,7 +202,8 @@ class LotteryServiceIntegrationTest {
         assertEquals(ErrorCode.INSUFFICIENT_DRAWS, exception.getErrorCode());
         assertTrue(exception.getMessage().contains("剩餘抽獎次數不足"));
 
-        // 驗證數據庫中的記錄
+        // 驗證數據庫中的記錄（統計在事務提交後異步合併寫入，先手動寫入）
+        statisticsAggregator.flush();
         LocalDate today = LocalDate.now();
         var dailyStats = dailyStatisticsRepository
                 .findByUserIdAndActivityIdAndDrawDate(testUser.getId(), dailyActivity.getId(), today);
@@ -193,7 +215,6 @@ class LotteryServiceIntegrationTest {
     @Test
     @Order(2)
     @DisplayName("整合測試：總次數限制超出")
-    @Transactional
     void testTotalLimitExceeded() {
         // Arrange
         DrawRequest request1 = new DrawRequest(totalActivity.getId(), 3);
@@ -216,7 +237,8 @@ class LotteryServiceIntegrationTest {
 
         assertEquals(ErrorCode.INSUFFICIENT_DRAWS, exception.getErrorCode());
 
-        // 驗證數據庫中的統計
+        // 驗證數據庫中的統計（統計在事務提交後異步合併寫入，先手動寫入）
+        statisticsAggregator.flush();
         var stats = statisticsRepository
                 .findByUserIdAndActivityId(testUser.getId(), totalActivity.getId());
 
@@ -277,6 +299,7 @@ class LotteryServiceIntegrationTest {
         limitedPrize.setProbability(BigDecimal.valueOf(1.0)); // 100% 中獎
         limitedPrize.setPrizeType(Prize.PrizeType.PHYSICAL);
         limitedPrize = prizeRepository.save(limitedPrize);
+        activityCacheInvalidator.activityChanged(concurrentActivity.getId());
 
         // 並發請求
         int threadCount = 10;
@@ -329,6 +352,7 @@ class LotteryServiceIntegrationTest {
         endedActivity.setMaxDrawsPerUser(5);
         endedActivity.setStatus(LotteryActivity.ActivityStatus.ACTIVE);
         endedActivity = activityRepository.save(endedActivity);
+        activityCacheInvalidator.activityChanged(endedActivity.getId());
 
         Long endedActivityId = endedActivity.getId();
 
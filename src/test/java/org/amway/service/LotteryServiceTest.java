@@ -1,5 +1,9 @@
 package org.amway.service;
 
+import org.amway.cache.ActivityDescriptor;
+import org.amway.cache.ActivityDescriptorCache;
+import org.amway.cache.ActivityTimeline;
+import org.amway.cache.PrizeCatalogCache;
 import org.amway.dto.request.DrawRequest;
 import org.amway.dto.response.DrawResponse;
 import org.amway.dto.response.DrawResult;
@@ -7,24 +11,32 @@ import org.amway.entity.*;
 import org.amway.exception.BusinessException;
 import org.amway.exception.enums.ErrorCode;
 import org.amway.repository.*;
+import org.amway.service.quota.DrawAdmission;
+import org.amway.service.quota.DrawQuotaService;
+import org.amway.service.record.JpaDrawRecordWriter;
+import org.amway.service.statistics.DrawCompletedEvent;
+import org.amway.service.stock.DatabasePrizeStockEngine;
+import org.amway.service.stock.PrizeStockShardInitializer;
+import org.amway.util.SnowflakeIdGenerator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -45,21 +57,20 @@ class LotteryServiceTest {
     private DrawRecordRepository drawRecordRepository;
 
     @Mock
-    private UserDrawStatisticsRepository statisticsRepository;
+    private UserRepository userRepository;
 
     @Mock
-    private UserDailyDrawStatisticsRepository dailyStatisticsRepository;
+    private PrizeStockShardRepository prizeStockShardRepository;
 
     @Mock
-    private UserRepository userRepository;
+    private PrizeStockShardInitializer prizeStockShardInitializer;
 
     @Mock
-    private RedissonClient redissonClient;
+    private DrawQuotaService drawQuotaService;
 
     @Mock
-    private RLock lock;
+    private ApplicationEventPublisher eventPublisher;
 
-    @InjectMocks
     private LotteryService lotteryService;
 
     private User testUser;
@@ -70,6 +81,21 @@ class LotteryServiceTest {
 
     @BeforeEach
     void setUp() throws Exception {
+        lotteryService = new LotteryService(
+                activityRepository,
+                prizeRepository,
+                drawRecordRepository,
+                userRepository,
+                new PrizeCatalogCache(prizeRepository, 100, 300),
+                new ActivityDescriptorCache(activityRepository, 100, 60),
+                new ActivityTimeline(activityRepository, new NoOpCacheManager()),
+                new DatabasePrizeStockEngine(prizeRepository, prizeStockShardRepository, prizeStockShardInitializer),
+                new SnowflakeIdGenerator(0),
+                new JpaDrawRecordWriter(drawRecordRepository),
+                drawQuotaService,
+                eventPublisher
+        );
+
         // 基本設置
         testUser = new User();
         testUser.setId(1L);
@@ -84,6 +110,8 @@ class LotteryServiceTest {
         testActivity.setMaxDrawsPerUser(5);
         testActivity.setLimitType("TOTAL"); // 默認總次數限制
         testActivity.setStatus(LotteryActivity.ActivityStatus.ACTIVE);
+        // 活動時間軸在首次抽獎時載入，各測試可在此之前修改活動
+        when(activityRepository.findSchedulableActivities(any())).thenAnswer(invocation -> List.of(testActivity));
 
         // 獎品設置
         prize1 = new Prize();
@@ -113,10 +141,22 @@ class LotteryServiceTest {
         noPrize.setPrizeType(Prize.PrizeType.NO_PRIZE);
         noPrize.setActivity(testActivity);
 
-        // Mock Redis 鎖（使用 lenient）
-        when(redissonClient.getLock(anyString())).thenReturn(lock);
-        when(lock.tryLock(anyLong(), anyLong(), any(TimeUnit.class))).thenReturn(true);
-        when(lock.isHeldByCurrentThread()).thenReturn(true);
+        // 抽獎記錄只持有用戶與活動的引用
+        when(userRepository.getReferenceById(1L)).thenReturn(testUser);
+        when(activityRepository.getReferenceById(1L)).thenReturn(testActivity);
+
+        // Mock 抽獎次數准入（模擬 Redis 計數器：檢查並累加）
+        AtomicInteger used = new AtomicInteger();
+        when(drawQuotaService.admit(any(ActivityDescriptor.class), anyLong(), anyInt()))
+                .thenAnswer(invocation -> {
+                    ActivityDescriptor activity = invocation.getArgument(0);
+                    int count = invocation.getArgument(2);
+                    int limit = activity.getMaxDrawsPerUser();
+                    if (used.get() + count > limit) {
+                        return DrawAdmission.rejected(used.get(), limit);
+                    }
+                    return DrawAdmission.admitted(used.addAndGet(count), limit);
+                });
     }
 
     @Test
@@ -124,28 +164,13 @@ class LotteryServiceTest {
     void testSingleDrawSuccess() {
         // Arrange
         DrawRequest request = new DrawRequest(1L, 1);
-        UserDrawStatistics statistics = new UserDrawStatistics();
-        statistics.setTotalDraws(0);
-        statistics.setUser(testUser);
-        statistics.setActivity(testActivity);
 
         when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(statisticsRepository.findByUserIdAndActivityIdWithLock(1L, 1L))
-                .thenReturn(Optional.of(statistics));
-        when(statisticsRepository.findByUserIdAndActivityId(1L, 1L))
-                .thenReturn(Optional.of(statistics));
         when(prizeRepository.findByActivityId(1L))
                 .thenReturn(Arrays.asList(prize1, prize2, noPrize));
-        when(prizeRepository.findByIdWithLock(anyLong()))
-                .thenReturn(Optional.of(prize1));
-        when(drawRecordRepository.save(any(DrawRecord.class)))
-                .thenAnswer(invocation -> {
-                    DrawRecord record = invocation.getArgument(0);
-                    record.setId(1L); // 設置 ID
-                    return record;
-                });
-        when(statisticsRepository.save(any(UserDrawStatistics.class)))
+        when(prizeRepository.decreaseStockIfAvailable(anyLong(), anyInt()))
+                .thenReturn(1);
+        when(drawRecordRepository.saveAll(anyList()))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -157,8 +182,8 @@ class LotteryServiceTest {
         assertEquals(1, response.getResults().size());
         assertEquals(4, response.getRemainingDraws());
 
-        verify(statisticsRepository).save(any(UserDrawStatistics.class));
-        verify(drawRecordRepository).save(any(DrawRecord.class));
+        verify(eventPublisher).publishEvent(any(DrawCompletedEvent.class));
+        verify(drawRecordRepository).saveAll(anyList());
     }
 
     @Test
@@ -166,28 +191,13 @@ class LotteryServiceTest {
     void testMultipleDraws() {
         // Arrange
         DrawRequest request = new DrawRequest(1L, 3);
-        UserDrawStatistics statistics = new UserDrawStatistics();
-        statistics.setTotalDraws(0);
-        statistics.setUser(testUser);
-        statistics.setActivity(testActivity);
 
         when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(statisticsRepository.findByUserIdAndActivityIdWithLock(1L, 1L))
-                .thenReturn(Optional.of(statistics));
-        when(statisticsRepository.findByUserIdAndActivityId(1L, 1L))
-                .thenReturn(Optional.of(statistics));
         when(prizeRepository.findByActivityId(1L))
                 .thenReturn(Arrays.asList(prize1, prize2, noPrize));
-        when(prizeRepository.findByIdWithLock(anyLong()))
-                .thenReturn(Optional.of(noPrize));
-        when(drawRecordRepository.save(any(DrawRecord.class)))
-                .thenAnswer(invocation -> {
-                    DrawRecord record = invocation.getArgument(0);
-                    record.setId(System.currentTimeMillis()); // 設置唯一 ID
-                    return record;
-                });
-        when(statisticsRepository.save(any(UserDrawStatistics.class)))
+        when(prizeRepository.decreaseStockIfAvailable(anyLong(), anyInt()))
+                .thenReturn(1);
+        when(drawRecordRepository.saveAll(anyList()))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -199,7 +209,11 @@ class LotteryServiceTest {
         assertEquals(3, response.getResults().size());
         assertEquals(2, response.getRemainingDraws());
 
-        verify(drawRecordRepository, times(3)).save(any(DrawRecord.class));
+        verify(drawRecordRepository, times(1)).saveAll(anyList());
+        verify(drawRecordRepository, never()).save(any(DrawRecord.class));
+        verify(prizeRepository, times(1)).findByActivityId(1L);
+        assertEquals(3, response.getResults().stream().map(DrawResult::getRecordId).distinct().count(),
+                "記錄 ID 由應用層生成且唯一");
     }
 
     @Test
@@ -207,15 +221,8 @@ class LotteryServiceTest {
     void testInsufficientDraws() {
         // Arrange
         DrawRequest request = new DrawRequest(1L, 6);
-        UserDrawStatistics statistics = new UserDrawStatistics();
-        statistics.setTotalDraws(0);
-        statistics.setUser(testUser);
-        statistics.setActivity(testActivity);
 
         when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(statisticsRepository.findByUserIdAndActivityId(1L, 1L))
-                .thenReturn(Optional.of(statistics));
 
         // Act & Assert
         BusinessException exception = assertThrows(BusinessException.class, () -> {
@@ -223,6 +230,8 @@ class LotteryServiceTest {
         });
 
         assertEquals(ErrorCode.INSUFFICIENT_DRAWS, exception.getErrorCode());
+        verify(drawRecordRepository, never()).saveAll(anyList());
+        verify(prizeRepository, never()).decreaseStockIfAvailable(anyLong(), anyInt());
     }
 
     @Test
@@ -263,43 +272,85 @@ class LotteryServiceTest {
     void testPrizeStockDeduction() {
         // Arrange
         DrawRequest request = new DrawRequest(1L, 1);
-        UserDrawStatistics statistics = new UserDrawStatistics();
-        statistics.setTotalDraws(0);
-        statistics.setUser(testUser);
-        statistics.setActivity(testActivity);
 
         // 強制保證會中獎 prize1
         prize1.setProbability(BigDecimal.valueOf(1.0));
         prize2.setProbability(BigDecimal.valueOf(0.0));
         noPrize.setProbability(BigDecimal.valueOf(0.0));
 
-        prize1.setRemainingStock(5);
-
         when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(statisticsRepository.findByUserIdAndActivityIdWithLock(1L, 1L))
-                .thenReturn(Optional.of(statistics));
-        when(statisticsRepository.findByUserIdAndActivityId(1L, 1L))
-                .thenReturn(Optional.of(statistics));
         when(prizeRepository.findByActivityId(1L))
                 .thenReturn(Arrays.asList(prize1, prize2, noPrize));
-        when(prizeRepository.findByIdWithLock(anyLong()))
-                .thenReturn(Optional.of(prize1));
-        when(drawRecordRepository.save(any(DrawRecord.class)))
-                .thenAnswer(invocation -> {
-                    DrawRecord record = invocation.getArgument(0);
-                    record.setId(1L);
-                    return record;
-                });
-        when(statisticsRepository.save(any(UserDrawStatistics.class)))
+        when(prizeRepository.decreaseStockIfAvailable(anyLong(), anyInt()))
+                .thenReturn(1);
+        when(drawRecordRepository.saveAll(anyList()))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         lotteryService.draw(1L, request);
 
         // Assert
-        assertEquals(4, prize1.getRemainingStock(), "庫存應該被扣 1");
-        verify(prizeRepository).save(prize1);
+        verify(prizeRepository).decreaseStockIfAvailable(1L, 1);
+        verify(prizeRepository, never()).findByIdWithLock(anyLong());
+        verify(prizeRepository, never()).save(any(Prize.class));
+    }
+
+    @Test
+    @DisplayName("測試銘謝惠顧與不限庫存獎品不扣減庫存")
+    void testNoStockWorkForUnlimitedAndNoPrize() {
+        // Arrange
+        DrawRequest request = new DrawRequest(1L, 2);
+
+        // 購物金不限庫存，與銘謝惠顧各占一半
+        prize1.setProbability(BigDecimal.valueOf(0.0));
+        prize2.setProbability(BigDecimal.valueOf(0.5));
+        prize2.setUnlimitedStock(true);
+        noPrize.setProbability(BigDecimal.valueOf(0.5));
+
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findByActivityId(1L))
+                .thenReturn(Arrays.asList(prize1, prize2, noPrize));
+
+        // Act
+        DrawResponse response = lotteryService.draw(1L, request);
+
+        // Assert
+        assertEquals(2, response.getResults().size());
+        response.getResults().forEach(result ->
+                assertEquals(result.getPrizeId().equals(2L), result.getIsWinning()));
+        verify(prizeRepository, never()).decreaseStockIfAvailable(anyLong(), anyInt());
+        verifyNoInteractions(prizeStockShardRepository);
+    }
+
+    @Test
+    @DisplayName("測試批次抽獎按獎品一次預扣庫存，不足部分降級")
+    void testBatchDrawReservesOncePerPrize() {
+        // Arrange
+        DrawRequest request = new DrawRequest(1L, 3);
+
+        prize1.setProbability(BigDecimal.valueOf(1.0));
+        prize2.setProbability(BigDecimal.valueOf(0.0));
+        noPrize.setProbability(BigDecimal.valueOf(0.0));
+
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findByActivityId(1L))
+                .thenReturn(Arrays.asList(prize1, prize2, noPrize));
+        // 只剩 2 件
+        when(prizeRepository.decreaseStockIfAvailable(1L, 3)).thenReturn(0);
+        when(prizeRepository.findRemainingStockById(1L)).thenReturn(Optional.of(2));
+        when(prizeRepository.decreaseStockIfAvailable(1L, 2)).thenReturn(1);
+        when(drawRecordRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        DrawResponse response = lotteryService.draw(1L, request);
+
+        // Assert
+        long winningCount = response.getResults().stream().filter(DrawResult::getIsWinning).count();
+        assertEquals(2, winningCount);
+        assertFalse(response.getResults().get(2).getIsWinning(), "超出庫存的抽獎應降級");
+        verify(prizeRepository).decreaseStockIfAvailable(1L, 3);
+        verify(drawRecordRepository).saveAll(anyList());
     }
 
     @Test
@@ -307,37 +358,17 @@ class LotteryServiceTest {
     void testProbabilityDistribution() {
         // Arrange
         DrawRequest request = new DrawRequest(1L, 1000);
-        UserDrawStatistics statistics = new UserDrawStatistics();
-        statistics.setTotalDraws(0);
-        statistics.setUser(testUser);
-        statistics.setActivity(testActivity);
 
         testActivity.setMaxDrawsPerUser(1000);
         prize1.setRemainingStock(100);
         prize2.setRemainingStock(200);
 
         when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(statisticsRepository.findByUserIdAndActivityIdWithLock(1L, 1L))
-                .thenReturn(Optional.of(statistics));
-        when(statisticsRepository.findByUserIdAndActivityId(1L, 1L))
-                .thenReturn(Optional.of(statistics));
         when(prizeRepository.findByActivityId(1L))
                 .thenReturn(Arrays.asList(prize1, prize2, noPrize));
-        when(prizeRepository.findByIdWithLock(anyLong()))
-                .thenAnswer(invocation -> {
-                    double random = Math.random();
-                    if (random < 0.1) return Optional.of(prize1);
-                    if (random < 0.3) return Optional.of(prize2);
-                    return Optional.of(noPrize);
-                });
-        when(drawRecordRepository.save(any(DrawRecord.class)))
-                .thenAnswer(invocation -> {
-                    DrawRecord record = invocation.getArgument(0);
-                    record.setId(System.currentTimeMillis());
-                    return record;
-                });
-        when(statisticsRepository.save(any(UserDrawStatistics.class)))
+        when(prizeRepository.decreaseStockIfAvailable(anyLong(), anyInt()))
+                .thenReturn(1);
+        when(drawRecordRepository.saveAll(anyList()))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -364,30 +395,13 @@ class LotteryServiceTest {
         testActivity.setMaxDrawsPerUser(3);
 
         DrawRequest request = new DrawRequest(1L, 3);
-        LocalDate today = LocalDate.now();
-
-        UserDailyDrawStatistics dailyStats = new UserDailyDrawStatistics();
-        dailyStats.setUserId(1L);
-        dailyStats.setActivityId(1L);
-        dailyStats.setDrawDate(today);
-        dailyStats.setDailyDraws(0);
-        dailyStats.setDailyWinningDraws(0);
 
         when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(dailyStatisticsRepository.findByUserIdAndActivityIdAndDrawDate(1L, 1L, today))
-                .thenReturn(Optional.of(dailyStats));
         when(prizeRepository.findByActivityId(1L))
                 .thenReturn(Arrays.asList(prize1, prize2, noPrize));
-        when(prizeRepository.findByIdWithLock(anyLong()))
-                .thenReturn(Optional.of(noPrize));
-        when(drawRecordRepository.save(any(DrawRecord.class)))
-                .thenAnswer(invocation -> {
-                    DrawRecord record = invocation.getArgument(0);
-                    record.setId(System.currentTimeMillis());
-                    return record;
-                });
-        when(dailyStatisticsRepository.save(any(UserDailyDrawStatistics.class)))
+        when(prizeRepository.decreaseStockIfAvailable(anyLong(), anyInt()))
+                .thenReturn(1);
+        when(drawRecordRepository.saveAll(anyList()))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -397,9 +411,10 @@ class LotteryServiceTest {
         assertNotNull(response);
         assertEquals(3, response.getDrawCount());
         assertEquals(0, response.getRemainingDraws(), "每日次數應該用完");
-        assertEquals(3, dailyStats.getDailyDraws());
-
-        verify(dailyStatisticsRepository).save(any(UserDailyDrawStatistics.class));
+        ArgumentCaptor<DrawCompletedEvent> event = ArgumentCaptor.forClass(DrawCompletedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        assertEquals(3, event.getValue().getDraws());
+        assertEquals(LocalDate.now(), event.getValue().getDrawTime().toLocalDate());
     }
 
     @Test
@@ -410,28 +425,13 @@ class LotteryServiceTest {
         testActivity.setMaxDrawsPerUser(5);
 
         DrawRequest request1 = new DrawRequest(1L, 3);
-        UserDrawStatistics statistics = new UserDrawStatistics();
-        statistics.setTotalDraws(0);
-        statistics.setUser(testUser);
-        statistics.setActivity(testActivity);
 
         when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(statisticsRepository.findByUserIdAndActivityIdWithLock(1L, 1L))
-                .thenReturn(Optional.of(statistics));
-        when(statisticsRepository.findByUserIdAndActivityId(1L, 1L))
-                .thenReturn(Optional.of(statistics));
         when(prizeRepository.findByActivityId(1L))
                 .thenReturn(Arrays.asList(prize1, prize2, noPrize));
-        when(prizeRepository.findByIdWithLock(anyLong()))
-                .thenReturn(Optional.of(noPrize));
-        when(drawRecordRepository.save(any(DrawRecord.class)))
-                .thenAnswer(invocation -> {
-                    DrawRecord record = invocation.getArgument(0);
-                    record.setId(System.currentTimeMillis());
-                    return record;
-                });
-        when(statisticsRepository.save(any(UserDrawStatistics.class)))
+        when(prizeRepository.decreaseStockIfAvailable(anyLong(), anyInt()))
+                .thenReturn(1);
+        when(drawRecordRepository.saveAll(anyList()))
                 .thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act - 第一次抽 3 次
@@ -450,6 +450,30 @@ class LotteryServiceTest {
         assertNotNull(response2);
         assertEquals(2, response2.getDrawCount());
         assertEquals(0, response2.getRemainingDraws(), "總次數用完");
-        assertEquals(5, statistics.getTotalDraws());
+        ArgumentCaptor<DrawCompletedEvent> events = ArgumentCaptor.forClass(DrawCompletedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(5, events.getAllValues().stream().mapToInt(DrawCompletedEvent::getDraws).sum());
+    }
+
+    @Test
+    @DisplayName("測試抽獎路徑不載入用戶，活動描述命中快取後不再查詢")
+    void testDrawPathSkipsEntityLoads() {
+        // Arrange
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findByActivityId(1L))
+                .thenReturn(Arrays.asList(prize1, prize2, noPrize));
+        when(prizeRepository.decreaseStockIfAvailable(anyLong(), anyInt()))
+                .thenReturn(1);
+        when(drawRecordRepository.saveAll(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        // Act
+        lotteryService.draw(1L, new DrawRequest(1L, 1));
+        lotteryService.draw(1L, new DrawRequest(1L, 1));
+        lotteryService.getRemainingDraws(1L, 1L);
+
+        // Assert
+        verify(activityRepository, times(1)).findById(1L);
+        verify(userRepository, never()).findById(anyLong());
     }
 }
@@ -0,0 +1,153 @@
+package org.amway.service.quota;
+
+import org.amway.cache.ActivityDescriptor;
+import org.amway.repository.DrawRecordRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("抽獎次數配額測試")
+class DrawQuotaServiceTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private DrawRecordRepository drawRecordRepository;
+
+    private DrawQuotaService drawQuotaService;
+    private ActivityDescriptor activity;
+
+    @BeforeEach
+    void setUp() {
+        drawQuotaService = new DrawQuotaService(stringRedisTemplate, drawRecordRepository);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+
+        activity = activity("TOTAL");
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("測試計數器缺失時從數據庫恢復後准入")
+    void testSeedFromDatabaseThenAdmit() {
+        when(drawRecordRepository.countByUserIdAndActivityId(7L, 1L)).thenReturn(2L);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(-1L, 0L), List.of(1L, 3L));
+
+        DrawAdmission admission = drawQuotaService.admit(activity, 7L, 1);
+
+        assertTrue(admission.isAdmitted());
+        assertEquals(2, admission.getRemaining());
+        verify(valueOperations).setIfAbsent(eq("lottery:quota:1:7:total"), eq("2"), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("測試超出上限立即拒絕")
+    void testRejectWhenExceeded() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(0L, 4L));
+
+        DrawAdmission admission = drawQuotaService.admit(activity, 7L, 3);
+
+        assertFalse(admission.isAdmitted());
+        assertEquals(1, admission.getRemaining());
+        verify(valueOperations, never()).setIfAbsent(anyString(), anyString(), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("測試事務回滾時歸還次數")
+    void testRefundOnRollback() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(List.of(1L, 3L));
+        TransactionSynchronizationManager.initSynchronization();
+
+        drawQuotaService.admit(activity, 7L, 3);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        // 歸還腳本返回 Long，准入腳本返回 List
+        verify(stringRedisTemplate).execute(argThat((RedisScript<?> script) -> script.getResultType() == Long.class),
+                eq(List.of("lottery:quota:1:7:total")), eq("3"), anyString());
+        verify(valueOperations, never()).decrement(anyString(), anyLong());
+    }
+
+    @Test
+    @DisplayName("測試查詢剩餘次數只需一次 GET")
+    void testRemainingFromCounter() {
+        when(valueOperations.get("lottery:quota:1:7:total")).thenReturn("3");
+
+        assertEquals(2, drawQuotaService.getRemaining(activity, 7L));
+        verifyNoInteractions(drawRecordRepository);
+    }
+
+    @Test
+    @DisplayName("測試每週限制以本週抽獎記錄恢復計數器")
+    void testWeeklySeedFromWindow() {
+        activity = activity("WEEKLY");
+        QuotaWindow window = QuotaWindow.of(activity, LocalDateTime.now());
+        when(drawRecordRepository.countDraws(7L, 1L, window.getStart(), window.getEnd())).thenReturn(4L);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(true);
+
+        assertEquals(1, drawQuotaService.getRemaining(activity, 7L));
+        verify(valueOperations).setIfAbsent(eq("lottery:quota:1:7:" + window.getBucket()), eq("4"), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("測試週期分桶與過期時間")
+    void testWindowBucketAndTtl() {
+        LocalDateTime now = LocalDateTime.of(2026, 3, 1, 23, 0); // 週日
+
+        activity = activity("DAILY");
+        QuotaWindow daily = QuotaWindow.of(activity, now);
+        assertEquals("lottery:quota:1:7:20260301", drawQuotaService.quotaKey(activity, 7L, daily));
+        assertEquals(Duration.ofHours(1), drawQuotaService.ttl(daily, now));
+
+        activity = activity("WEEKLY");
+        QuotaWindow weekly = QuotaWindow.of(activity, now);
+        assertEquals("2026W09", weekly.getBucket());
+        assertEquals(LocalDateTime.of(2026, 2, 23, 0, 0), weekly.getStart());
+        assertEquals(Duration.ofHours(1), drawQuotaService.ttl(weekly, now));
+
+        activity = activity("TOTAL");
+        assertEquals("total", QuotaWindow.of(activity, now).getBucket());
+    }
+
+    private ActivityDescriptor activity(String limitType) {
+        return ActivityDescriptor.builder()
+                .id(1L)
+                .limitType(limitType)
+                .maxDrawsPerUser(5)
+                .endTime(LocalDateTime.now().plusDays(3))
+                .build();
+    }
+}
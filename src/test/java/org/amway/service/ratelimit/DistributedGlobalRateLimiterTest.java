@@ -0,0 +1,208 @@
+package org.amway.service.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("分佈式全局限流測試")
+class DistributedGlobalRateLimiterTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private DistributedGlobalRateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        // 租期取 1 秒，測試執行期間租到的令牌不會過期
+        rateLimiter = new DistributedGlobalRateLimiter(stringRedisTemplate, 1000, 1000, 60000);
+    }
+
+    @Test
+    @DisplayName("測試一次租借的令牌在本地扣減，用完才再訪問 Redis")
+    @SuppressWarnings("unchecked")
+    void testLocalTokensServeBatch() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(5L);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(rateLimiter.tryAcquire());
+        }
+        verify(stringRedisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+
+        assertTrue(rateLimiter.tryAcquire());
+        verify(stringRedisTemplate, times(2)).execute(any(RedisScript.class),
+                eq(List.of(DistributedGlobalRateLimiter.BUCKET_KEY)), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("測試集群令牌用完時拒絕，退避期間不再訪問 Redis")
+    @SuppressWarnings("unchecked")
+    void testRejectAndBackOffWhenBucketEmpty() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(0L);
+
+        assertFalse(rateLimiter.tryAcquire());
+        assertFalse(rateLimiter.tryAcquire());
+        assertFalse(rateLimiter.tryAcquire());
+
+        verify(stringRedisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("測試每批租借數量隨請求速率增長且不超過租期內的集群配額")
+    @SuppressWarnings("unchecked")
+    void testBatchGrowsWithDemand() {
+        List<Long> requested = new ArrayList<>();
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    long batch = Long.parseLong(invocation.getArgument(4));
+                    requested.add(batch);
+                    return batch;
+                });
+
+        for (int i = 0; i < 5000; i++) {
+            assertTrue(rateLimiter.tryAcquire());
+        }
+
+        assertTrue(requested.size() > 1);
+        assertTrue(requested.get(requested.size() - 1) > requested.get(0), "批量應隨需求增長：" + requested);
+        assertTrue(requested.stream().allMatch(batch -> batch >= 1 && batch <= 1000), "批量超出範圍：" + requested);
+        assertTrue(requested.size() < 50, "每個請求不應都訪問 Redis：" + requested.size());
+    }
+
+    @Test
+    @DisplayName("測試 Redis 不可用時降級為本地限流，重試間隔內不再訪問 Redis")
+    @SuppressWarnings("unchecked")
+    void testFallbackWhenRedisUnavailable() {
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new QueryTimeoutException("Redis timeout"));
+
+        assertTrue(rateLimiter.tryAcquire());
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.tryAcquire();
+        }
+
+        verify(stringRedisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("測試租借進行中時其他執行緒短暫等待並使用租到的令牌")
+    @SuppressWarnings("unchecked")
+    void testOtherThreadsWaitForInFlightLease() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    entered.countDown();
+                    release.await();
+                    return 5L;
+                });
+
+        Thread leaser = new Thread(rateLimiter::tryAcquire);
+        leaser.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        Thread releaser = new Thread(() -> {
+            sleep(50);
+            release.countDown();
+        });
+        releaser.start();
+        assertTrue(rateLimiter.tryAcquire(), "等待中的租借返回後應使用租到的令牌");
+
+        leaser.join();
+        releaser.join();
+        verify(stringRedisTemplate, times(1)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("測試租借超過 lease-ms 未返回時改用本地限流")
+    @SuppressWarnings("unchecked")
+    void testFallbackWhenLeaseStalls() throws Exception {
+        DistributedGlobalRateLimiter limiter = new DistributedGlobalRateLimiter(stringRedisTemplate, 1000, 50, 60000);
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    entered.countDown();
+                    release.await();
+                    return 5L;
+                });
+
+        Thread leaser = new Thread(limiter::tryAcquire);
+        leaser.start();
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        assertTrue(limiter.tryAcquire());
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+
+        release.countDown();
+        leaser.join();
+    }
+
+    @Test
+    @DisplayName("測試併發請求未超過全局上限時不拒絕")
+    @SuppressWarnings("unchecked")
+    void testNoRejectionsUnderLimit() throws Exception {
+        // 集群每秒 100000 個令牌，測試中的請求遠低於上限；每次租借模擬 1 ms 的 Redis 往返
+        DistributedGlobalRateLimiter limiter = new DistributedGlobalRateLimiter(stringRedisTemplate, 100_000, 100, 60000);
+        when(stringRedisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenAnswer(invocation -> {
+                    sleep(1);
+                    return Long.parseLong(invocation.getArgument(4));
+                });
+
+        int threads = 16;
+        int requestsPerThread = 200;
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < requestsPerThread; i++) {
+                    if (!limiter.tryAcquire()) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(0, rejected.get());
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
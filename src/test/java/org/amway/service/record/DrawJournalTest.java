@@ -0,0 +1,173 @@
+package org.amway.service.record;
+
+import org.amway.entity.DrawRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("抽獎日誌測試")
+class DrawJournalTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("測試寫入後完整讀出")
+    void testAppendAndRead() throws IOException {
+        DrawJournal journal = new DrawJournal(directory, SEGMENT_SIZE);
+        DrawJournalEntry winning = entry(1L, 10L, "100元購物金");
+        DrawJournalEntry losing = entry(2L, null, "銘謝惠顧");
+
+        journal.append(List.of(winning, losing, DrawJournalEntry.commit(1L)));
+        journal.appendUnforced(List.of(DrawJournalEntry.abort(3L)));
+        JournalBatch batch = journal.read(journal.getCheckpoint(), 100);
+
+        assertEquals(List.of(winning, losing, DrawJournalEntry.commit(1L), DrawJournalEntry.abort(3L)), batch.getEntries());
+        assertEquals(4, batch.getPositions().size());
+        assertEquals(journal.getWritePosition(), batch.getNext());
+        assertTrue(journal.read(batch.getNext(), 100).getEntries().isEmpty());
+    }
+
+    @Test
+    @DisplayName("測試跨段寫入與分批讀取")
+    void testRollAcrossSegments() throws IOException {
+        DrawJournal journal = new DrawJournal(directory, SEGMENT_SIZE);
+        for (long id = 1; id <= 200; id++) {
+            journal.append(List.of(entry(id, id, "獎品" + id)));
+        }
+
+        List<Long> ids = readAll(journal, journal.getCheckpoint(), 7);
+
+        assertEquals(LongStream.rangeClosed(1, 200).boxed().toList(), ids);
+        assertTrue(segmentCount() > 1, "應切換到多個段");
+    }
+
+    @Test
+    @DisplayName("測試重啟後從檢查點回放並清理已落庫的段")
+    void testReplayFromCheckpointAfterRestart() throws IOException {
+        DrawJournal journal = new DrawJournal(directory, SEGMENT_SIZE);
+        for (long id = 1; id <= 100; id++) {
+            journal.append(List.of(entry(id, id, "獎品" + id)));
+        }
+        JournalBatch flushed = journal.read(journal.getCheckpoint(), 60);
+        journal.commit(flushed.getNext());
+        journal.close();
+
+        // 模擬進程崩潰後重啟
+        DrawJournal reopened = new DrawJournal(directory, SEGMENT_SIZE);
+        assertEquals(flushed.getNext(), reopened.getCheckpoint());
+        reopened.append(List.of(entry(101L, 1L, "新記錄")));
+
+        List<Long> replayed = readAll(reopened, reopened.getCheckpoint(), 1000);
+        assertEquals(LongStream.rangeClosed(61, 101).boxed().toList(), replayed);
+
+        long firstRemaining = segments().get(0);
+        assertEquals(flushed.getNext().getSegment(), firstRemaining, "檢查點之前的段應被刪除");
+    }
+
+    @Test
+    @DisplayName("測試崩潰時的半寫條目被忽略")
+    void testTornTailIgnored() throws IOException {
+        DrawJournal journal = new DrawJournal(directory, SEGMENT_SIZE);
+        journal.append(List.of(entry(1L, 1L, "完整記錄"), entry(2L, 1L, "半寫記錄")));
+        JournalPosition end = journal.getWritePosition();
+        journal.close();
+
+        // 破壞最後一個條目的內容（長度已寫入但內容未完整落盤）
+        try (FileChannel channel = FileChannel.open(segmentPath(end.getSegment()), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 0}), end.getOffset() - 4);
+        }
+
+        DrawJournal reopened = new DrawJournal(directory, SEGMENT_SIZE);
+        reopened.append(List.of(entry(3L, 1L, "重啟後記錄")));
+
+        assertEquals(List.of(1L, 3L), readAll(reopened, reopened.getCheckpoint(), 100));
+    }
+
+    @Test
+    @DisplayName("測試多執行緒併發追加不丟失")
+    void testConcurrentAppend() throws Exception {
+        DrawJournal journal = new DrawJournal(directory, 64 * 1024);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            long base = t * 1000L;
+            executor.submit(() -> {
+                for (long i = 1; i <= 200; i++) {
+                    journal.append(List.of(entry(base + i, 1L, "獎品")));
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        List<Long> ids = readAll(journal, journal.getCheckpoint(), 500);
+        assertEquals(1600, ids.size());
+        assertEquals(1600, ids.stream().distinct().count());
+    }
+
+    private List<Long> readAll(DrawJournal journal, JournalPosition from, int batchSize) {
+        List<Long> ids = new ArrayList<>();
+        JournalPosition position = from;
+        while (true) {
+            JournalBatch batch = journal.read(position, batchSize);
+            batch.getEntries().forEach(entry -> ids.add(entry.getRecordId()));
+            if (batch.getNext().equals(position)) {
+                return ids;
+            }
+            position = batch.getNext();
+        }
+    }
+
+    private DrawJournalEntry entry(Long recordId, Long prizeId, String prizeName) {
+        return DrawJournalEntry.builder()
+                .type(DrawJournalEntry.Type.RECORD)
+                .transactionId(recordId)
+                .recordId(recordId)
+                .activityId(1L)
+                .userId(2L)
+                .prizeId(prizeId)
+                .drawTime(LocalDateTime.of(2026, 1, 1, 12, 0, 0, 123456789))
+                .winning(prizeId != null)
+                .prizeName(prizeName)
+                .status(DrawRecord.DrawStatus.COMPLETED)
+                .build();
+    }
+
+    private long segmentCount() throws IOException {
+        return segments().size();
+    }
+
+    private List<Long> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(".journal"))
+                    .map(name -> Long.parseLong(name.replaceAll("\\D", "")))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("segment-%020d.journal", segment));
+    }
+}
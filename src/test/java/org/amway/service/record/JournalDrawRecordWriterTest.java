@@ -0,0 +1,173 @@
+package org.amway.service.record;
+
+import org.amway.entity.DrawRecord;
+import org.amway.entity.LotteryActivity;
+import org.amway.entity.Prize;
+import org.amway.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("日誌寫入器回寫測試")
+class JournalDrawRecordWriterTest {
+
+    @TempDir
+    Path directory;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE draw_records (" +
+                "id BIGINT PRIMARY KEY, activity_id BIGINT NOT NULL, user_id BIGINT NOT NULL, prize_id BIGINT, " +
+                "draw_time TIMESTAMP, is_winning BOOLEAN NOT NULL, prize_name VARCHAR(100), " +
+                "status VARCHAR(20) NOT NULL, created_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE draw_journal_commits (" +
+                "id BIGINT PRIMARY KEY, created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP)");
+    }
+
+    @Test
+    @DisplayName("測試分批回寫數據庫並推進檢查點")
+    void testFlushPersistsInBatches() throws IOException {
+        DrawJournal journal = new DrawJournal(directory, 4096);
+        JournalDrawRecordWriter writer = new JournalDrawRecordWriter(journal, jdbcTemplate, 2);
+
+        writer.write(List.of(record(1L, 10L), record(2L, null), record(3L, 10L)));
+        writer.flush();
+
+        assertEquals(List.of(1L, 2L, 3L), jdbcTemplate.queryForList("SELECT id FROM draw_records ORDER BY id", Long.class));
+        assertNull(jdbcTemplate.queryForObject("SELECT prize_id FROM draw_records WHERE id = 2", Long.class));
+        assertEquals(journal.getWritePosition(), journal.getCheckpoint());
+    }
+
+    @Test
+    @DisplayName("測試只回寫提交成功的事務")
+    void testOnlyCommittedTransactionsArePersisted() throws IOException {
+        DrawJournal journal = new DrawJournal(directory, 4096);
+        JournalDrawRecordWriter writer = new JournalDrawRecordWriter(journal, jdbcTemplate, 100);
+
+        writeInTransaction(writer, record(1L, 10L), TransactionSynchronization.STATUS_ROLLED_BACK);
+        writeInTransaction(writer, record(2L, 10L), TransactionSynchronization.STATUS_COMMITTED);
+        writer.flush();
+
+        assertEquals(List.of(2L), jdbcTemplate.queryForList("SELECT id FROM draw_records ORDER BY id", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM draw_journal_commits WHERE id = 2", Integer.class),
+                "讀到 COMMIT 標記後應清除提交行");
+    }
+
+    @Test
+    @DisplayName("測試回寫停在進行中的事務之前，結束後再回寫")
+    void testFlushWaitsForInFlightTransaction() throws IOException {
+        DrawJournal journal = new DrawJournal(directory, 4096);
+        JournalDrawRecordWriter writer = new JournalDrawRecordWriter(journal, jdbcTemplate, 100);
+
+        writer.write(List.of(record(1L, 10L)));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            writer.write(List.of(record(2L, 10L)));
+            writer.flush();
+
+            assertEquals(List.of(1L), jdbcTemplate.queryForList("SELECT id FROM draw_records ORDER BY id", Long.class));
+            assertNotEquals(journal.getWritePosition(), journal.getCheckpoint());
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), TransactionSynchronization.STATUS_COMMITTED);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        writer.flush();
+
+        assertEquals(List.of(1L, 2L), jdbcTemplate.queryForList("SELECT id FROM draw_records ORDER BY id", Long.class));
+        assertEquals(journal.getWritePosition(), journal.getCheckpoint());
+    }
+
+    @Test
+    @DisplayName("測試崩潰時沒有結果標記的事務由數據庫確認")
+    void testReplayResolvesUnmarkedTransactions() throws IOException {
+        DrawJournal journal = new DrawJournal(directory, 4096);
+        JournalDrawRecordWriter writer = new JournalDrawRecordWriter(journal, jdbcTemplate, 100);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // 模擬兩個事務都已寫入日誌，前者已提交、後者已回滾（沒有提交行），結果標記落盤前節點崩潰
+            writer.write(List.of(record(1L, 10L), record(2L, null)));
+            writer.write(List.of(record(3L, 10L)));
+            jdbcTemplate.update("DELETE FROM draw_journal_commits WHERE id = 3");
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        journal.close();
+
+        JournalDrawRecordWriter restarted = new JournalDrawRecordWriter(new DrawJournal(directory, 4096), jdbcTemplate, 100);
+        restarted.replay();
+
+        assertEquals(List.of(1L, 2L), jdbcTemplate.queryForList("SELECT id FROM draw_records ORDER BY id", Long.class));
+    }
+
+    @Test
+    @DisplayName("測試重啟回放是冪等的")
+    void testReplayIsIdempotent() throws IOException {
+        DrawJournal journal = new DrawJournal(directory, 4096);
+        journal.append(List.of(DrawJournalEntry.of(1L, record(1L, 10L)), DrawJournalEntry.of(1L, record(2L, 10L)),
+                DrawJournalEntry.commit(1L)));
+        // 模擬記錄已落庫但檢查點尚未寫入時崩潰
+        new JournalDrawRecordWriter(new DrawJournal(directory, 4096), jdbcTemplate, 100).flush();
+        journal.close();
+
+        directory.resolve("checkpoint").toFile().delete();
+        JournalDrawRecordWriter restarted = new JournalDrawRecordWriter(new DrawJournal(directory, 4096), jdbcTemplate, 100);
+        restarted.replay();
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM draw_records", Integer.class));
+    }
+
+    private void writeInTransaction(JournalDrawRecordWriter writer, DrawRecord record, int status) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            writer.write(List.of(record));
+            TransactionSynchronizationUtils.invokeAfterCompletion(
+                    TransactionSynchronizationManager.getSynchronizations(), status);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private DrawRecord record(Long id, Long prizeId) {
+        LotteryActivity activity = new LotteryActivity();
+        activity.setId(1L);
+        User user = new User();
+        user.setId(2L);
+
+        DrawRecord record = new DrawRecord();
+        record.setId(id);
+        record.setActivity(activity);
+        record.setUser(user);
+        if (prizeId != null) {
+            Prize prize = new Prize();
+            prize.setId(prizeId);
+            record.setPrize(prize);
+        }
+        record.setDrawTime(LocalDateTime.now());
+        record.setIsWinning(prizeId != null);
+        record.setPrizeName(prizeId != null ? "100元購物金" : "銘謝惠顧");
+        record.setStatus(DrawRecord.DrawStatus.COMPLETED);
+        return record;
+    }
+}
@@ -0,0 +1,117 @@
+package org.amway.service.statistics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("抽獎統計聚合器測試")
+class DrawStatisticsAggregatorTest {
+
+    private static final String CREATE_DAILY_TABLE = "CREATE TABLE user_daily_draw_statistics (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, activity_id BIGINT NOT NULL, " +
+            "draw_date DATE NOT NULL, daily_draws INT NOT NULL DEFAULT 0, daily_winning_draws INT NOT NULL DEFAULT 0, " +
+            "created_at TIMESTAMP, updated_at TIMESTAMP, UNIQUE KEY uk_user_activity_date (user_id, activity_id, draw_date))";
+
+    private JdbcTemplate jdbcTemplate;
+    private DrawStatisticsAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE user_draw_statistics (" +
+                "id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, activity_id BIGINT NOT NULL, " +
+                "total_draws INT NOT NULL DEFAULT 0, winning_draws INT NOT NULL DEFAULT 0, last_draw_time DATETIME, " +
+                "created_at DATETIME, updated_at DATETIME, UNIQUE KEY uk_user_activity (user_id, activity_id))");
+        jdbcTemplate.execute(CREATE_DAILY_TABLE);
+
+        aggregator = new DrawStatisticsAggregator(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), 100_000);
+    }
+
+    @Test
+    @DisplayName("測試積壓超過上限時在後台寫入，不阻塞抽獎執行緒")
+    void testEarlyFlushRunsInBackground() throws InterruptedException {
+        DrawStatisticsAggregator small = new DrawStatisticsAggregator(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource())), 1);
+        LocalDateTime now = LocalDateTime.now();
+
+        synchronized (small) {
+            // 持有 flush 的鎖模擬數據庫寫入卡住，事件仍應立即返回
+            small.onDrawCompleted(new DrawCompletedEvent(7L, 1L, now, 1, 0));
+            small.onDrawCompleted(new DrawCompletedEvent(8L, 1L, now, 1, 0));
+            assertEquals(2, small.pendingKeys());
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (small.pendingKeys() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, small.pendingKeys());
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_draw_statistics", Integer.class));
+        small.shutdown();
+    }
+
+    @Test
+    @DisplayName("測試併發事件合併為每個鍵一條語句並累加到已有統計")
+    void testCoalesceConcurrentEvents() throws InterruptedException {
+        jdbcTemplate.update("INSERT INTO user_draw_statistics (user_id, activity_id, total_draws, winning_draws) " +
+                "VALUES (7, 1, 10, 2)");
+        LocalDateTime day1 = LocalDateTime.of(2026, 3, 1, 10, 0);
+        LocalDateTime day2 = day1.plusDays(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            LocalDateTime drawTime = i % 2 == 0 ? day1 : day2;
+            executor.submit(() -> aggregator.onDrawCompleted(new DrawCompletedEvent(7L, 1L, drawTime, 2, 1)));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(2, aggregator.pendingKeys(), "同一用戶兩天的事件應合併為兩個鍵");
+
+        aggregator.flush();
+
+        Map<String, Object> total = jdbcTemplate.queryForMap(
+                "SELECT total_draws, winning_draws, last_draw_time FROM user_draw_statistics WHERE user_id = 7");
+        assertEquals(2010, ((Number) total.get("TOTAL_DRAWS")).intValue());
+        assertEquals(1002, ((Number) total.get("WINNING_DRAWS")).intValue());
+        assertEquals(day2, ((Timestamp) total.get("LAST_DRAW_TIME")).toLocalDateTime());
+        assertEquals(1000, jdbcTemplate.queryForObject(
+                "SELECT daily_draws FROM user_daily_draw_statistics WHERE draw_date = '2026-03-02'", Integer.class));
+        assertEquals(0, aggregator.pendingKeys());
+    }
+
+    @Test
+    @DisplayName("測試寫入失敗時整體回滾並保留增量")
+    void testRetryAfterFailure() {
+        jdbcTemplate.execute("DROP TABLE user_daily_draw_statistics");
+        aggregator.onDrawCompleted(new DrawCompletedEvent(7L, 1L, LocalDateTime.now(), 3, 1));
+
+        aggregator.flush();
+
+        assertEquals(1, aggregator.pendingKeys());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM user_draw_statistics", Integer.class),
+                "總統計應隨事務回滾");
+
+        jdbcTemplate.execute(CREATE_DAILY_TABLE);
+        aggregator.flush();
+
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT total_draws FROM user_draw_statistics", Integer.class));
+        assertEquals(3, jdbcTemplate.queryForObject("SELECT daily_draws FROM user_daily_draw_statistics", Integer.class));
+    }
+}
@@ -0,0 +1,154 @@
+package org.amway.service.stock;
+
+import org.amway.cache.PrizeSnapshot;
+import org.amway.entity.Prize;
+import org.amway.repository.PrizeRepository;
+import org.amway.repository.PrizeStockShardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("數據庫庫存引擎測試")
+class DatabasePrizeStockEngineTest {
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @Mock
+    private PrizeStockShardRepository shardRepository;
+
+    @Mock
+    private PrizeStockShardInitializer shardInitializer;
+
+    private DatabasePrizeStockEngine stockEngine;
+
+    @BeforeEach
+    void setUp() {
+        stockEngine = new DatabasePrizeStockEngine(prizeRepository, shardRepository, shardInitializer);
+    }
+
+    @Test
+    @DisplayName("測試未分片獎品以單條條件更新扣減")
+    void testSingleRowReserve() {
+        when(prizeRepository.decreaseStockIfAvailable(1L, 1)).thenReturn(1);
+
+        assertEquals(1, stockEngine.reserve(prize(1), 1));
+        verify(prizeRepository).decreaseStockIfAvailable(1L, 1);
+        verifyNoInteractions(shardRepository);
+    }
+
+    @Test
+    @DisplayName("測試未分片獎品庫存不足時部分扣減")
+    void testSingleRowPartialReserve() {
+        when(prizeRepository.decreaseStockIfAvailable(1L, 5)).thenReturn(0);
+        when(prizeRepository.findRemainingStockById(1L)).thenReturn(Optional.of(2));
+        when(prizeRepository.decreaseStockIfAvailable(1L, 2)).thenReturn(1);
+
+        assertEquals(2, stockEngine.reserve(prize(1), 5));
+    }
+
+    @Test
+    @DisplayName("測試分片為空時改扣其他分片")
+    void testShardFallback() {
+        // 只有 2 號分片有庫存
+        when(shardRepository.decreaseStockIfAvailable(eq(1L), anyInt(), eq(1)))
+                .thenAnswer(invocation -> (int) invocation.getArgument(1) == 2 ? 1 : 0);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(1, stockEngine.reserve(prize(4), 1));
+        }
+        verify(shardInitializer, never()).ensureShards(anyLong());
+    }
+
+    @Test
+    @DisplayName("測試所有分片為空時才判定庫存不足")
+    void testAllShardsEmpty() {
+        when(shardRepository.decreaseStockIfAvailable(eq(1L), anyInt(), anyInt())).thenReturn(0);
+        when(shardRepository.countByPrizeId(1L)).thenReturn(4L);
+
+        assertEquals(0, stockEngine.reserve(prize(4), 1));
+        verify(shardRepository, times(4)).decreaseStockIfAvailable(eq(1L), anyInt(), eq(1));
+    }
+
+    @Test
+    @DisplayName("測試分片未初始化時先建立分片")
+    void testShardsInitializedLazily() {
+        when(shardRepository.countByPrizeId(1L)).thenReturn(0L);
+        when(shardRepository.decreaseStockIfAvailable(eq(1L), anyInt(), eq(1))).thenReturn(0, 0, 0, 0, 1);
+
+        assertEquals(1, stockEngine.reserve(prize(4), 1));
+        verify(shardInitializer).ensureShards(1L);
+    }
+
+    @Test
+    @DisplayName("測試多件扣減跨分片湊齊")
+    void testMultiUnitAcrossShards() {
+        // 每個分片各剩 1 件
+        when(shardRepository.decreaseStockIfAvailable(eq(1L), anyInt(), anyInt()))
+                .thenAnswer(invocation -> (int) invocation.getArgument(2) == 1 ? 1 : 0);
+        when(shardRepository.findRemainingStock(eq(1L), anyInt())).thenReturn(Optional.of(1));
+
+        assertEquals(3, stockEngine.reserve(prize(4), 3));
+    }
+
+    @Test
+    @DisplayName("測試快照過期（已改為分片）時改扣分片")
+    void testStaleUnshardedSnapshotRoutesToShards() {
+        // 獎品已 reshard 為 4 個分片，prizes 的條件扣減因 stock_shards <= 1 不再生效
+        when(prizeRepository.decreaseStockIfAvailable(eq(1L), anyInt())).thenReturn(0);
+        when(prizeRepository.findStockShardsById(1L)).thenReturn(Optional.of(4));
+        when(shardRepository.decreaseStockIfAvailable(eq(1L), anyInt(), eq(1))).thenReturn(1);
+
+        assertEquals(1, stockEngine.reserve(prize(1), 1));
+        verify(shardRepository).decreaseStockIfAvailable(eq(1L), anyInt(), eq(1));
+    }
+
+    @Test
+    @DisplayName("測試快照過期（已改回不分片）時改扣獎品行")
+    void testStaleShardedSnapshotRoutesToPrize() {
+        // 分片已被 reshard 刪除
+        when(shardRepository.decreaseStockIfAvailable(eq(1L), anyInt(), anyInt())).thenReturn(0);
+        when(shardRepository.countByPrizeId(1L)).thenReturn(0L);
+        when(shardInitializer.ensureShards(1L)).thenReturn(false);
+        when(prizeRepository.findStockShardsById(1L)).thenReturn(Optional.of(1));
+        when(prizeRepository.decreaseStockIfAvailable(1L, 1)).thenReturn(1);
+
+        assertEquals(1, stockEngine.reserve(prize(4), 1));
+        verify(prizeRepository).decreaseStockIfAvailable(1L, 1);
+    }
+
+    @Test
+    @DisplayName("測試分片數未變更時庫存不足不重試")
+    void testNoRetryWhenSnapshotCurrent() {
+        when(prizeRepository.decreaseStockIfAvailable(1L, 1)).thenReturn(0);
+        when(prizeRepository.findStockShardsById(1L)).thenReturn(Optional.of(1));
+
+        assertEquals(0, stockEngine.reserve(prize(1), 1));
+        verify(prizeRepository, times(1)).decreaseStockIfAvailable(1L, 1);
+        verifyNoInteractions(shardRepository);
+    }
+
+    private PrizeSnapshot prize(int stockShards) {
+        return PrizeSnapshot.builder()
+                .id(1L)
+                .name("100元購物金")
+                .prizeType(Prize.PrizeType.VIRTUAL)
+                .probability(BigDecimal.valueOf(0.14))
+                .stockShards(stockShards)
+                .build();
+    }
+}
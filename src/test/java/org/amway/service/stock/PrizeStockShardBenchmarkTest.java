@@ -0,0 +1,157 @@
+package org.amway.service.stock;
+
+import org.amway.cache.ActivityCacheInvalidator;
+import org.amway.cache.PrizeSnapshot;
+import org.amway.entity.LotteryActivity;
+import org.amway.entity.Prize;
+import org.amway.repository.LotteryActivityRepository;
+import org.amway.repository.PrizeRepository;
+import org.amway.repository.PrizeStockShardRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 分片庫存基準測試：並發中獎者經 DatabasePrizeStockEngine.reserve 扣減同一熱門獎品
+ * 每次扣減在獨立事務中執行，並在提交前持有行鎖一段時間（模擬寫入抽獎記錄），比較單行與分片的吞吐量
+ * 執行：./gradlew test --tests '*PrizeStockShardBenchmarkTest' -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("分片庫存基準測試")
+class PrizeStockShardBenchmarkTest {
+
+    /**
+     * 不超過測試連線池大小，避免測到的是等待連線而不是行鎖競爭
+     */
+    private static final int THREADS = 8;
+    private static final int DRAWS_PER_THREAD = 500;
+    private static final int STOCK = THREADS * DRAWS_PER_THREAD;
+    private static final int SHARDS = 8;
+    private static final long HOLD_MICROS = 500;
+
+    @Autowired
+    private LotteryActivityRepository activityRepository;
+
+    @Autowired
+    private PrizeRepository prizeRepository;
+
+    @Autowired
+    private PrizeStockShardRepository shardRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private DatabasePrizeStockEngine stockEngine;
+    private TransactionTemplate transactionTemplate;
+    private LotteryActivity activity;
+
+    @BeforeEach
+    void setUp() {
+        PrizeStockShardInitializer shardInitializer = new PrizeStockShardInitializer(
+                prizeRepository, shardRepository, mock(ActivityCacheInvalidator.class));
+        stockEngine = new DatabasePrizeStockEngine(prizeRepository, shardRepository, shardInitializer);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+
+        activity = new LotteryActivity();
+        activity.setName("基準測試活動");
+        activity.setStartTime(LocalDateTime.now().minusDays(1));
+        activity.setEndTime(LocalDateTime.now().plusDays(1));
+        activity.setMaxDrawsPerUser(STOCK);
+        activity = activityRepository.save(activity);
+    }
+
+    @AfterEach
+    void tearDown() {
+        shardRepository.deleteAll();
+        prizeRepository.deleteAll();
+        activityRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("單行 vs 分片庫存吞吐量")
+    void benchmark(TestReporter reporter) throws Exception {
+        double single = run(1);
+        double sharded = run(SHARDS);
+
+        reporter.publishEntry("單行庫存（次/秒）", String.format("%.0f", single));
+        reporter.publishEntry(SHARDS + " 分片（次/秒）", String.format("%.0f", sharded));
+        reporter.publishEntry("提升", String.format("%.1fx", sharded / single));
+        assertTrue(sharded > single, "分片後吞吐量應高於單行");
+    }
+
+    private double run(int shardCount) throws Exception {
+        Prize prize = new Prize();
+        prize.setActivity(activity);
+        prize.setName("熱門獎品-" + shardCount);
+        prize.setTotalStock(STOCK);
+        prize.setRemainingStock(STOCK);
+        prize.setStockShards(shardCount);
+        prize.setProbability(new BigDecimal("0.1"));
+        prize = prizeRepository.save(prize);
+        PrizeSnapshot snapshot = PrizeSnapshot.from(prize);
+        // 分片在計時前建立，與活動預熱一致
+        stockEngine.preload(activity.getId());
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger granted = new AtomicInteger();
+        Future<?>[] workers = new Future<?>[THREADS];
+
+        for (int t = 0; t < THREADS; t++) {
+            workers[t] = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < DRAWS_PER_THREAD; i++) {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        granted.addAndGet(stockEngine.reserve(snapshot, 1));
+                        busyWait(HOLD_MICROS);
+                    });
+                }
+                return null;
+            });
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+
+        assertEquals(STOCK, granted.get(), "所有中獎者都應扣到庫存");
+        assertEquals(0, prizeRepository.findById(prize.getId()).orElseThrow().getRemainingStock());
+        return (double) STOCK / elapsed * TimeUnit.SECONDS.toNanos(1);
+    }
+
+    private static void busyWait(long micros) {
+        long deadline = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(micros);
+        while (System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.amway.service.stock;
+
+import org.amway.cache.ActivityCacheInvalidator;
+import org.amway.entity.LotteryActivity;
+import org.amway.entity.Prize;
+import org.amway.entity.PrizeStockShard;
+import org.amway.repository.PrizeRepository;
+import org.amway.repository.PrizeStockShardRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("庫存分片初始化與重建測試")
+class PrizeStockShardInitializerTest {
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @Mock
+    private PrizeStockShardRepository shardRepository;
+
+    @Mock
+    private ActivityCacheInvalidator activityCacheInvalidator;
+
+    private PrizeStockShardInitializer initializer;
+    private Prize prize;
+
+    @BeforeEach
+    void setUp() {
+        initializer = new PrizeStockShardInitializer(prizeRepository, shardRepository, activityCacheInvalidator);
+
+        LotteryActivity activity = new LotteryActivity();
+        activity.setId(9L);
+        prize = new Prize();
+        prize.setId(1L);
+        prize.setActivity(activity);
+        prize.setTotalStock(100);
+        prize.setRemainingStock(100);
+        prize.setStockShards(4);
+        when(prizeRepository.findByIdWithLock(1L)).thenReturn(Optional.of(prize));
+    }
+
+    @Test
+    @DisplayName("測試補貨時按分片總和計算並重建全部分片")
+    @SuppressWarnings("unchecked")
+    void testRestockRebuildsShards() {
+        // 分片總和為 30，prizes.remaining_stock 尚未回寫
+        when(shardRepository.findByPrizeIdWithLock(1L)).thenReturn(List.of(shard(0, 10), shard(1, 20)));
+
+        assertEquals(50, initializer.reshard(1L, 50, 3));
+
+        ArgumentCaptor<List<PrizeStockShard>> captor = ArgumentCaptor.forClass(List.class);
+        verify(shardRepository).deleteByPrizeId(1L);
+        verify(shardRepository).saveAll(captor.capture());
+        assertEquals(List.of(17, 17, 16), captor.getValue().stream().map(PrizeStockShard::getRemainingStock).toList());
+        assertEquals(50, prize.getRemainingStock());
+        assertEquals(120, prize.getTotalStock(), "已發出的 70 件應保持不變");
+        assertEquals(3, prize.getStockShards());
+        verify(activityCacheInvalidator).prizeChanged(9L);
+    }
+
+    @Test
+    @DisplayName("測試縮減為不分片時庫存合併回 prizes")
+    void testReshardToSingleRow() {
+        when(shardRepository.findByPrizeIdWithLock(1L)).thenReturn(List.of(shard(0, 5), shard(1, 0), shard(2, 7), shard(3, 1)));
+
+        assertEquals(13, initializer.reshard(1L, null, 1));
+
+        verify(shardRepository).deleteByPrizeId(1L);
+        verify(shardRepository, never()).saveAll(anyList());
+        assertEquals(13, prize.getRemainingStock());
+        assertEquals(1, prize.getStockShards());
+    }
+
+    @Test
+    @DisplayName("測試分片數已調整為 1 時不再建立分片")
+    void testEnsureShardsSkipsUnshardedPrize() {
+        prize.setStockShards(1);
+
+        assertFalse(initializer.ensureShards(1L));
+        verify(shardRepository, never()).saveAll(anyList());
+    }
+
+    private PrizeStockShard shard(int shardNo, int stock) {
+        PrizeStockShard shard = new PrizeStockShard();
+        shard.setPrizeId(1L);
+        shard.setShardNo(shardNo);
+        shard.setRemainingStock(stock);
+        return shard;
+    }
+}
@@ -0,0 +1,73 @@
+package org.amway.service.stock;
+
+import org.amway.dto.response.ActivityStockResponse;
+import org.amway.exception.BusinessException;
+import org.amway.exception.enums.ErrorCode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("即時庫存推送測試")
+class PrizeStockStreamTest {
+
+    @Mock
+    private PrizeStockView prizeStockView;
+
+    private PrizeStockStream stream;
+
+    @BeforeEach
+    void setUp() {
+        when(prizeStockView.get(anyLong())).thenAnswer(invocation -> ActivityStockResponse.builder()
+                .activityId(invocation.getArgument(0))
+                .updatedAt(LocalDateTime.now())
+                .prizes(List.of())
+                .build());
+        stream = new PrizeStockStream(prizeStockView, 60000, 3, 2);
+    }
+
+    @Test
+    @DisplayName("測試單個活動訂閱數超過上限時返回限流錯誤")
+    void testRejectWhenActivityFull() {
+        stream.subscribe(1L);
+        stream.subscribe(1L);
+
+        BusinessException exception = assertThrows(BusinessException.class, () -> stream.subscribe(1L));
+        assertEquals(ErrorCode.RATE_LIMIT_EXCEEDED, exception.getErrorCode());
+        assertEquals(2, stream.subscriberCount(1L));
+        assertEquals(2, stream.totalSubscriberCount());
+    }
+
+    @Test
+    @DisplayName("測試本節點訂閱數超過上限時返回限流錯誤，斷開後釋放名額")
+    void testRejectWhenNodeFullAndReleaseOnDisconnect() {
+        SseEmitter first = stream.subscribe(1L);
+        stream.subscribe(2L);
+        stream.subscribe(3L);
+
+        BusinessException exception = assertThrows(BusinessException.class, () -> stream.subscribe(4L));
+        assertEquals(ErrorCode.RATE_LIMIT_EXCEEDED, exception.getErrorCode());
+        assertEquals(0, stream.subscriberCount(4L));
+
+        // 連線已結束的訂閱者在下一次推送失敗時移除並釋放名額
+        first.complete();
+        stream.push();
+        assertEquals(0, stream.subscriberCount(1L));
+        assertEquals(2, stream.totalSubscriberCount());
+        assertDoesNotThrow(() -> stream.subscribe(4L));
+    }
+}
@@ -0,0 +1,98 @@
+package org.amway.service.stock;
+
+import org.amway.cache.ActivityDescriptorCache;
+import org.amway.cache.PrizeCatalogCache;
+import org.amway.cache.PrizeSnapshot;
+import org.amway.dto.response.ActivityStockResponse;
+import org.amway.entity.LotteryActivity;
+import org.amway.entity.Prize;
+import org.amway.exception.BusinessException;
+import org.amway.repository.LotteryActivityRepository;
+import org.amway.repository.PrizeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("即時庫存視圖測試")
+class PrizeStockViewTest {
+
+    @Mock
+    private LotteryActivityRepository activityRepository;
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @Mock
+    private PrizeStockEngine stockEngine;
+
+    private PrizeStockView stockView;
+
+    @BeforeEach
+    void setUp() {
+        LotteryActivity activity = new LotteryActivity();
+        activity.setId(1L);
+        activity.setStartTime(LocalDateTime.now().minusDays(1));
+        activity.setEndTime(LocalDateTime.now().plusDays(1));
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(activity));
+        when(prizeRepository.findByActivityId(1L)).thenReturn(List.of(
+                prize(1L, Prize.PrizeType.PHYSICAL, false),
+                prize(2L, Prize.PrizeType.VIRTUAL, true),
+                prize(3L, Prize.PrizeType.NO_PRIZE, false)));
+        when(stockEngine.remainingStock(anyList())).thenReturn(Map.of(1L, 7));
+
+        stockView = new PrizeStockView(new ActivityDescriptorCache(activityRepository, 100, 60),
+                new PrizeCatalogCache(prizeRepository, 100, 300), stockEngine, 60_000);
+    }
+
+    @Test
+    @DisplayName("測試只讀取需要扣減庫存的獎品，且在有效期內不重複讀取")
+    void testStockedPrizesOnlyAndCached() {
+        ActivityStockResponse stock = stockView.get(1L);
+        stockView.get(1L);
+
+        assertEquals(3, stock.getPrizes().size());
+        assertEquals(7, stock.getPrizes().get(0).getRemainingStock());
+        assertNull(stock.getPrizes().get(1).getRemainingStock(), "不限庫存獎品不返回庫存");
+        assertTrue(stock.getPrizes().get(2).getUnlimitedStock());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PrizeSnapshot>> prizes = ArgumentCaptor.forClass(List.class);
+        verify(stockEngine, times(1)).remainingStock(prizes.capture());
+        assertEquals(List.of(1L), prizes.getValue().stream().map(PrizeSnapshot::getId).toList());
+    }
+
+    @Test
+    @DisplayName("測試活動不存在")
+    void testActivityNotFound() {
+        assertThrows(BusinessException.class, () -> stockView.get(99L));
+        verifyNoInteractions(stockEngine);
+    }
+
+    private Prize prize(Long id, Prize.PrizeType type, boolean unlimited) {
+        Prize prize = new Prize();
+        prize.setId(id);
+        prize.setName("獎品" + id);
+        prize.setPrizeType(type);
+        prize.setUnlimitedStock(unlimited);
+        prize.setProbability(new BigDecimal("0.1"));
+        return prize;
+    }
+}
@@ -0,0 +1,130 @@
+package org.amway.service.stock;
+
+import org.amway.cache.PrizeSnapshot;
+import org.amway.entity.Prize;
+import org.amway.repository.DrawRecordRepository;
+import org.amway.repository.LotteryActivityRepository;
+import org.amway.repository.PrizeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("Redis 庫存引擎恢復與歸還測試")
+class RedisPrizeStockEngineTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @Mock
+    private LotteryActivityRepository activityRepository;
+
+    @Mock
+    private DrawRecordRepository drawRecordRepository;
+
+    private RedisPrizeStockEngine stockEngine;
+
+    @BeforeEach
+    void setUp() {
+        stockEngine = new RedisPrizeStockEngine(stringRedisTemplate, prizeRepository, activityRepository, drawRecordRepository);
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(stringRedisTemplate.hasKey("lottery:stock:1")).thenReturn(false);
+        when(valueOperations.setIfAbsent(anyString(), anyString())).thenReturn(true);
+    }
+
+    @Test
+    @DisplayName("測試數據庫庫存未回寫時按中獎記錄校正，不會超發")
+    void testRestoreCorrectedByWinningRecords() {
+        // Redis 重啟前已發出 30 件，但只回寫了 20 件
+        when(drawRecordRepository.countWinningDraws(1L)).thenReturn(30L);
+
+        stockEngine.restoreIfAbsent(prize(100, 80));
+
+        verify(valueOperations).setIfAbsent("lottery:stock:1", "70");
+    }
+
+    @Test
+    @DisplayName("測試數據庫庫存已是最新時按數據庫恢復")
+    void testRestoreFromSyncedStock() {
+        when(drawRecordRepository.countWinningDraws(1L)).thenReturn(20L);
+
+        stockEngine.restoreIfAbsent(prize(100, 80));
+
+        verify(valueOperations).setIfAbsent("lottery:stock:1", "80");
+    }
+
+    @Test
+    @DisplayName("測試計數器存在時不查詢數據庫")
+    void testSkipWhenPresent() {
+        when(stringRedisTemplate.hasKey("lottery:stock:1")).thenReturn(true);
+
+        stockEngine.restoreIfAbsent(prize(100, 80));
+
+        verifyNoInteractions(drawRecordRepository);
+        verify(valueOperations, never()).setIfAbsent(anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("測試回滾時以腳本歸還，計數器不存在時不重建")
+    @SuppressWarnings("unchecked")
+    void testReleaseOnRollbackOnlyWhenKeyExists() {
+        when(stringRedisTemplate.execute(argThat((RedisScript<?> script) -> script.getScriptAsString().contains("DECRBY")),
+                anyList(), any(Object[].class))).thenReturn(2L);
+        when(stringRedisTemplate.execute(argThat((RedisScript<?> script) -> script.getScriptAsString().contains("INCRBY")),
+                anyList(), any(Object[].class))).thenReturn(-1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            stockEngine.reserve(snapshot(), 2);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(stringRedisTemplate).execute(argThat((RedisScript<?> script) -> script.getScriptAsString().contains("INCRBY")),
+                eq(List.of("lottery:stock:1")), eq("2"));
+        verify(valueOperations, never()).increment(anyString(), anyLong());
+    }
+
+    private PrizeSnapshot snapshot() {
+        return PrizeSnapshot.builder()
+                .id(1L)
+                .name("100元購物金")
+                .prizeType(Prize.PrizeType.VIRTUAL)
+                .probability(BigDecimal.valueOf(0.14))
+                .stockShards(1)
+                .build();
+    }
+
+    private Prize prize(int totalStock, int remainingStock) {
+        Prize prize = new Prize();
+        prize.setId(1L);
+        prize.setTotalStock(totalStock);
+        prize.setRemainingStock(remainingStock);
+        return prize;
+    }
+}
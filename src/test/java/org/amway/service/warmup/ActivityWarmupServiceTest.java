@@ -0,0 +1,147 @@
+package org.amway.service.warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.zaxxer.hikari.HikariDataSource;
+import org.amway.cache.ActivityDescriptorCache;
+import org.amway.cache.PrizeCatalogCache;
+import org.amway.dto.response.WarmupStatusResponse;
+import org.amway.entity.LotteryActivity;
+import org.amway.entity.Prize;
+import org.amway.repository.LotteryActivityRepository;
+import org.amway.repository.PrizeRepository;
+import org.amway.service.ActivityService;
+import org.amway.service.stock.PrizeStockEngine;
+import org.amway.service.stock.PrizeStockView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("活動預熱測試")
+class ActivityWarmupServiceTest {
+
+    @Mock
+    private LotteryActivityRepository activityRepository;
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @Mock
+    private PrizeStockEngine stockEngine;
+
+    @Mock
+    private PrizeStockView stockView;
+
+    @Mock
+    private ActivityService activityService;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    private ActivityWarmupService warmupService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LotteryActivity activity = new LotteryActivity();
+        activity.setId(1L);
+        activity.setName("限時活動");
+        activity.setStartTime(LocalDateTime.now().plusMinutes(3));
+        activity.setEndTime(LocalDateTime.now().plusDays(1));
+        when(activityRepository.findUpcomingActivities(any(), any())).thenReturn(List.of(activity));
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(activity));
+
+        Prize prize = new Prize();
+        prize.setId(10L);
+        prize.setName("獎品");
+        prize.setProbability(new BigDecimal("0.5"));
+        when(prizeRepository.findByActivityId(1L)).thenReturn(List.of(prize));
+
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOperations);
+
+        warmupService = new ActivityWarmupService(activityRepository,
+                new ActivityDescriptorCache(activityRepository, 100, 60),
+                new PrizeCatalogCache(prizeRepository, 100, 300),
+                stockEngine, stockView, activityService, dataSource, redisTemplate,
+                new ObjectMapper().registerModule(new JavaTimeModule()),
+                3, 5, 3, 1000);
+    }
+
+    @Test
+    @DisplayName("測試完整預熱只執行一次，之後只刷新快取")
+    void testWarmOnceThenRefresh() throws Exception {
+        warmupService.scan();
+        warmupService.scan();
+
+        verify(stockEngine, times(1)).preload(1L);
+        verify(stockView, times(1)).get(1L);
+        verify(dataSource, times(3)).getConnection();
+        verify(connection, times(3)).close();
+        verify(activityService, times(2)).getActivityDetail(1L);
+
+        List<WarmupStatusResponse> statuses = warmupService.getLocalStatuses();
+        assertEquals(1, statuses.size());
+        assertEquals(ActivityWarmupService.STATUS_READY, statuses.get(0).getStatus());
+        assertEquals(3L, statuses.get(0).getNodeId());
+        verify(hashOperations, atLeastOnce()).put(eq("lottery:warmup:1"), eq("3"), contains("READY"));
+    }
+
+    @Test
+    @DisplayName("測試借出的連線數保留連線池的最小空閒連線")
+    void testWarmConnectionsKeepMinimumIdle() throws Exception {
+        HikariDataSource pool = mock(HikariDataSource.class);
+        when(dataSource.isWrapperFor(HikariDataSource.class)).thenReturn(true);
+        when(dataSource.unwrap(HikariDataSource.class)).thenReturn(pool);
+        when(pool.getMaximumPoolSize()).thenReturn(10);
+        when(pool.getMinimumIdle()).thenReturn(8);
+
+        warmupService.scan();
+
+        verify(dataSource, times(2)).getConnection();
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    @DisplayName("測試預熱失敗時記錄原因並在下次掃描重試")
+    void testRetryAfterFailure() {
+        doThrow(new IllegalStateException("Redis 不可用")).doNothing().when(stockEngine).preload(1L);
+
+        warmupService.scan();
+        WarmupStatusResponse failed = warmupService.getLocalStatuses().get(0);
+        assertEquals(ActivityWarmupService.STATUS_FAILED, failed.getStatus());
+        assertEquals("Redis 不可用", failed.getMessage());
+
+        warmupService.scan();
+        assertEquals(ActivityWarmupService.STATUS_READY, warmupService.getLocalStatuses().get(0).getStatus());
+        verify(stockEngine, times(2)).preload(1L);
+    }
+}
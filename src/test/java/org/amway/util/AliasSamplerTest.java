@@ -0,0 +1,67 @@
+package org.amway.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("別名表抽樣器測試")
+class AliasSamplerTest {
+
+    @Test
+    @DisplayName("測試抽樣分布符合機率")
+    void testDistribution() {
+        double[] probabilities = {0.01, 0.05, 0.14, 0.80};
+        AliasSampler sampler = AliasSampler.fromCumulativeProbabilities(probabilities);
+        Random random = new Random(42);
+
+        int draws = 1_000_000;
+        int[] counts = new int[probabilities.length];
+        for (int i = 0; i < draws; i++) {
+            counts[sampler.sample(random)]++;
+        }
+
+        for (int i = 0; i < probabilities.length; i++) {
+            double actual = (double) counts[i] / draws;
+            assertEquals(probabilities[i], actual, 0.005, "索引 " + i + " 的抽中比例不符");
+        }
+    }
+
+    @Test
+    @DisplayName("測試機率總和不足 1 時剩餘機率歸入最後一項")
+    void testResidualGoesToLast() {
+        AliasSampler sampler = AliasSampler.fromCumulativeProbabilities(new double[]{0.2, 0.0});
+        Random random = new Random(7);
+
+        int draws = 200_000;
+        int lastCount = 0;
+        for (int i = 0; i < draws; i++) {
+            if (sampler.sample(random) == 1) {
+                lastCount++;
+            }
+        }
+
+        assertEquals(0.8, (double) lastCount / draws, 0.01);
+    }
+
+    @Test
+    @DisplayName("測試機率總和超過 1 時截斷後面的項目")
+    void testOverflowTruncated() {
+        AliasSampler sampler = AliasSampler.fromCumulativeProbabilities(new double[]{1.0, 0.5, 0.3});
+        Random random = new Random(1);
+
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(0, sampler.sample(random));
+        }
+    }
+
+    @Test
+    @DisplayName("測試空列表與非法權重")
+    void testInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> AliasSampler.fromCumulativeProbabilities(new double[0]));
+        assertThrows(IllegalArgumentException.class, () -> AliasSampler.fromWeights(new double[]{0.0, 0.0}));
+        assertThrows(IllegalArgumentException.class, () -> AliasSampler.fromWeights(new double[]{-1.0, 2.0}));
+    }
+}
@@ -0,0 +1,67 @@
+package org.amway.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+@DisplayName("節點ID租約測試")
+class NodeIdLeaseTest {
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    @BeforeEach
+    void setUp() {
+        when(stringRedisTemplate.opsForValue()).thenReturn(valueOperations);
+    }
+
+    @Test
+    @DisplayName("測試配置的節點ID空閒時直接佔用")
+    void testConfiguredNodeId() {
+        when(valueOperations.setIfAbsent(eq("lottery:node-id:7"), anyString(), any(Duration.class))).thenReturn(true);
+
+        NodeIdLease lease = new NodeIdLease(stringRedisTemplate, 7L, Duration.ofSeconds(30));
+
+        assertEquals(7, lease.getNodeId());
+        assertTrue(lease.isConfigured());
+    }
+
+    @Test
+    @DisplayName("測試配置的節點ID被其他實例佔用時啟動失敗")
+    void testDuplicateConfiguredNodeIdFailsFast() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+
+        assertThrows(IllegalStateException.class,
+                () -> new NodeIdLease(stringRedisTemplate, 7L, Duration.ofMillis(10)));
+    }
+
+    @Test
+    @DisplayName("測試未配置時分配空閒的節點ID")
+    void testLeaseFreeNodeId() {
+        when(valueOperations.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenReturn(false);
+        when(valueOperations.setIfAbsent(eq("lottery:node-id:42"), anyString(), any(Duration.class))).thenReturn(true);
+
+        NodeIdLease lease = new NodeIdLease(stringRedisTemplate, null, Duration.ofSeconds(30));
+
+        assertEquals(42, lease.getNodeId());
+        assertFalse(lease.isConfigured());
+    }
+}
@@ -0,0 +1,104 @@
+package org.amway.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("雪花 ID 生成器測試")
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    @DisplayName("測試多執行緒並發生成不重複")
+    void testUniqueUnderConcurrency() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+        int threads = 16;
+        int perThread = 20_000;
+
+        Set<Long> ids = generateConcurrently(threads, perThread, i -> generator);
+
+        assertEquals(threads * perThread, ids.size());
+    }
+
+    @Test
+    @DisplayName("測試多個節點同時生成不重複")
+    void testUniqueAcrossNodes() throws InterruptedException {
+        int nodes = 8;
+        SnowflakeIdGenerator[] generators = new SnowflakeIdGenerator[nodes];
+        for (int i = 0; i < nodes; i++) {
+            generators[i] = new SnowflakeIdGenerator(i);
+        }
+        int perNode = 20_000;
+
+        Set<Long> ids = generateConcurrently(nodes, perNode, i -> generators[i]);
+
+        assertEquals(nodes * perNode, ids.size());
+        for (int i = 0; i < nodes; i++) {
+            assertEquals(i, SnowflakeIdGenerator.nodeIdOf(generators[i].nextId()));
+        }
+    }
+
+    @Test
+    @DisplayName("測試時鐘回撥與序號用盡時仍單調遞增")
+    void testMonotonicWhenClockGoesBackwards() {
+        AtomicLong now = new AtomicLong(SnowflakeIdGenerator.EPOCH + 10_000);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, now::get);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            if (i == 5_000) {
+                now.addAndGet(-2_000); // 時鐘回撥
+            }
+            long id = generator.nextId();
+            assertTrue(id > previous, "ID 必須單調遞增");
+            previous = id;
+        }
+    }
+
+    @Test
+    @DisplayName("測試非法節點ID")
+    void testInvalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+
+    private Set<Long> generateConcurrently(int threads, int perThread,
+                                           IntFunction<IdGenerator> generatorOf)
+            throws InterruptedException {
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            IdGenerator generator = generatorOf.apply(t);
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(generator.nextId());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+        return ids;
+    }
+}
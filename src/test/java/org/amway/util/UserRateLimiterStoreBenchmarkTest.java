@@ -0,0 +1,85 @@
+package org.amway.util;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.ref.Reference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongPredicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 用戶限流器存儲基準測試：大量用戶隨機請求，比較 ConcurrentHashMap<Long, RateLimiter> 與 UserRateLimiterStore 的吞吐量與堆佔用
+ * 執行：./gradlew test --tests '*UserRateLimiterStoreBenchmarkTest' -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DisplayName("用戶限流器存儲基準測試")
+class UserRateLimiterStoreBenchmarkTest {
+
+    private static final int USERS = 1_000_000;
+    private static final int THREADS = 8;
+    private static final int REQUESTS_PER_THREAD = 2_000_000;
+
+    @Test
+    @DisplayName("Guava RateLimiter Map vs 條帶化 long[] 存儲")
+    void benchmark(TestReporter reporter) throws Exception {
+        long baseline = usedHeap();
+        ConcurrentHashMap<Long, RateLimiter> guava = new ConcurrentHashMap<>();
+        double guavaThroughput = run(userId -> guava.computeIfAbsent(userId, k -> RateLimiter.create(1)).tryAcquire());
+        long guavaHeap = usedHeap() - baseline;
+        int guavaEntries = guava.size();
+        Reference.reachabilityFence(guava);
+        guava.clear();
+
+        baseline = usedHeap();
+        UserRateLimiterStore store = new UserRateLimiterStore(1, USERS);
+        double storeThroughput = run(store::tryAcquire);
+        long storeHeap = usedHeap() - baseline;
+        Reference.reachabilityFence(store);
+
+        // System.gc 只是提示，堆佔用僅供參考，不作為斷言
+        reporter.publishEntry("Guava Map（次/秒）", String.format("%.0f", guavaThroughput));
+        reporter.publishEntry("Guava Map（條目 / 堆 MB）", guavaEntries + " / " + (guavaHeap >> 20));
+        reporter.publishEntry("UserRateLimiterStore（次/秒）", String.format("%.0f", storeThroughput));
+        reporter.publishEntry("UserRateLimiterStore（條目 / 堆 MB）", store.size() + " / " + (storeHeap >> 20));
+    }
+
+    private double run(LongPredicate tryAcquire) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < THREADS; t++) {
+            executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                    tryAcquire.test(random.nextInt(USERS) + 1L);
+                }
+                return null;
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        return THREADS * (double) REQUESTS_PER_THREAD / seconds;
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
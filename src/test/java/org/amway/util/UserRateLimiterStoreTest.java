@@ -0,0 +1,127 @@
+package org.amway.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("用戶限流器存儲測試")
+class UserRateLimiterStoreTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    @DisplayName("測試令牌桶語義：容量為一秒的許可，按間隔補充")
+    void testTokenBucket() {
+        UserRateLimiterStore store = new UserRateLimiterStore(5, 1000);
+        long now = 0;
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(store.tryAcquire(1L, now), "第 " + (i + 1) + " 個許可");
+        }
+        assertFalse(store.tryAcquire(1L, now));
+        assertTrue(store.tryAcquire(2L, now), "用戶之間互不影響");
+
+        assertFalse(store.tryAcquire(1L, now + SECOND / 5 - 1));
+        assertTrue(store.tryAcquire(1L, now + SECOND / 5));
+        assertFalse(store.tryAcquire(1L, now + SECOND / 5));
+
+        // 閒置很久也最多累積 5 個許可
+        long later = now + 60 * SECOND;
+        for (int i = 0; i < 5; i++) {
+            assertTrue(store.tryAcquire(1L, later));
+        }
+        assertFalse(store.tryAcquire(1L, later));
+    }
+
+    @Test
+    @DisplayName("測試與 HashMap 參考實現逐次一致（含閒置清除與後移刪除）")
+    void testMatchesReferenceModel() {
+        UserRateLimiterStore store = new UserRateLimiterStore(2, 1_000_000);
+        Map<Long, Long> reference = new HashMap<>();
+        long interval = SECOND / 2;
+        long tolerance = interval;
+        Random random = new Random(42);
+
+        long now = 0;
+        for (int i = 0; i < 200_000; i++) {
+            now += random.nextInt(200_000);
+            long userId = random.nextInt(5_000) - 100;
+
+            long tat = reference.getOrDefault(userId, now);
+            boolean expected = tat - tolerance - now <= 0;
+            if (expected) {
+                reference.put(userId, Math.max(tat, now) + interval);
+            }
+            assertEquals(expected, store.tryAcquire(userId, now), "第 " + i + " 次請求，用戶 " + userId);
+        }
+        assertTrue(store.size() <= reference.size());
+    }
+
+    @Test
+    @DisplayName("測試閒置用戶被清除，記憶體只隨活躍用戶增長")
+    void testIdleEviction() {
+        UserRateLimiterStore store = new UserRateLimiterStore(1, 1_000_000);
+
+        for (long userId = 0; userId < 10_000; userId++) {
+            assertTrue(store.tryAcquire(userId, 0));
+        }
+        for (long userId = 10_000; userId < 20_000; userId++) {
+            assertTrue(store.tryAcquire(userId, 2 * SECOND));
+        }
+
+        assertTrue(store.size() < 15_000, "第一批用戶已閒置，應在擴容前被清除，實際：" + store.size());
+        assertFalse(store.tryAcquire(19_999L, 2 * SECOND), "活躍用戶仍受限");
+    }
+
+    @Test
+    @DisplayName("測試條目數不超過上限")
+    void testHardCap() {
+        UserRateLimiterStore store = new UserRateLimiterStore(1, 10_000);
+
+        for (long userId = 0; userId < 200_000; userId++) {
+            assertTrue(store.tryAcquire(userId, userId));
+        }
+
+        assertTrue(store.maxEntries() <= 10_000);
+        assertTrue(store.size() <= store.maxEntries(), "實際：" + store.size());
+        for (long userId = 199_900; userId < 200_000; userId++) {
+            assertFalse(store.tryAcquire(userId, 200_000), "最近的用戶不應被淘汰：" + userId);
+        }
+    }
+
+    @Test
+    @DisplayName("測試併發請求同一用戶時許可數精確")
+    void testConcurrentAcquire() throws Exception {
+        UserRateLimiterStore store = new UserRateLimiterStore(100, 1000);
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 1000; i++) {
+                    if (store.tryAcquire(7L, 0)) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, granted.get());
+    }
+}